@@ -0,0 +1,107 @@
+package com.company.usersresourceapp.config;
+
+import com.company.usersresourceapp.UsersResourceAppApplication;
+import com.company.usersresourceapp.util.StatementCounter;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Overhead of the request metrics. {@code recordRequestMetrics} is the work they add to every request: the statement
+ * counting of {@link RequestMetricsConfiguration} with its distribution, and a timer with histogram and percentiles
+ * like {@code http.server.requests}. {@code getUser} is a whole cached {@code GET /users/{id}}, metrics included,
+ * through the dispatcher without the network, which is the cheapest request the application serves.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RequestMetricsBenchmark {
+    @State(Scope.Benchmark)
+    public static class Metrics {
+        PrometheusMeterRegistry registry;
+
+        RequestMetricsConfiguration.StatementMetrics statementMetrics;
+
+        StatementCounter statementCounter;
+
+        ExecutionInfo executionInfo;
+
+        List<QueryInfo> queries;
+
+        MockHttpServletRequest request;
+
+        MockHttpServletResponse response;
+
+        @Setup
+        public void setUp() {
+            registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+            statementMetrics = new RequestMetricsConfiguration.StatementMetrics(registry, 20, Duration.ofSeconds(1));
+            statementCounter = new StatementCounter();
+            executionInfo = new ExecutionInfo();
+            queries = List.of(new QueryInfo("select * from user where id = ?"));
+            request = new MockHttpServletRequest("GET", "/users/1");
+            request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/users/{id}");
+            response = new MockHttpServletResponse();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Application {
+        ConfigurableApplicationContext context;
+
+        MockMvc mockMvc;
+
+        @Setup
+        public void setUp() throws Exception {
+            context = new SpringApplicationBuilder(UsersResourceAppApplication.class)
+                    .properties("server.port=0", "logging.level.root=warn", "spring.devtools.restart.enabled=false")
+                    .run();
+            mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context).build();
+            mockMvc.perform(post("/users").contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"email\":\"bench@example.com\",\"firstName\":\"John\",\"lastName\":\"Doe\",\"birthDate\":\"1990-01-01\"}"));
+        }
+
+        @TearDown
+        public void tearDown() {
+            context.close();
+        }
+    }
+
+    @Benchmark
+    public void recordRequestMetrics(Metrics metrics) throws Exception {
+        long start = System.nanoTime();
+        metrics.statementMetrics.preHandle(metrics.request, metrics.response, null);
+        metrics.statementCounter.afterQuery(metrics.executionInfo, metrics.queries);
+        metrics.statementMetrics.afterCompletion(metrics.request, metrics.response, null, null);
+        Timer.builder("http.server.requests")
+                .tags("method", "GET", "uri", "/users/{id}", "status", "200", "outcome", "SUCCESS",
+                        "exception", "none", "error", "none")
+                .publishPercentiles(0.5, 0.95, 0.99, 0.999)
+                .publishPercentileHistogram()
+                .register(metrics.registry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    @Benchmark
+    public Object getUser(Application application) throws Exception {
+        return application.mockMvc.perform(get("/users/1")).andReturn();
+    }
+}
@@ -0,0 +1,58 @@
+package com.company.usersresourceapp.controller;
+
+import com.company.usersresourceapp.model.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.mediatype.MessageResolver;
+import org.springframework.hateoas.mediatype.hal.CurieProvider;
+import org.springframework.hateoas.mediatype.hal.Jackson2HalModule;
+import org.springframework.hateoas.server.core.DefaultLinkRelationProvider;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HAL JSON serialization of a user listing, as written by {@link UserController#getAllUsers}.
+ * Links are prebuilt so that only Jackson work is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UserCollectionSerializationBenchmark {
+    @Param({"1000", "10000", "100000"})
+    private int users;
+
+    private ObjectWriter halWriter;
+
+    private CollectionModel<EntityModel<User>> collectionModel;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper halObjectMapper = new ObjectMapper().registerModule(new Jackson2HalModule());
+        halObjectMapper.setHandlerInstantiator(new Jackson2HalModule.HalHandlerInstantiator(
+                new DefaultLinkRelationProvider(), CurieProvider.NONE, MessageResolver.DEFAULTS_ONLY));
+        halWriter = halObjectMapper.writer();
+        List<EntityModel<User>> models = new ArrayList<>(users);
+        for (long id = 1; id <= users; id++) {
+            User user = new User("user" + id + "@example.com", "John", "Doe", new Date(0));
+            user.setId(id);
+            user.setAddress("Main street " + id);
+            models.add(EntityModel.of(user,
+                    Link.of("http://localhost:8080/users/" + id),
+                    Link.of("http://localhost:8080/users", "users")));
+        }
+        collectionModel = CollectionModel.of(models, Link.of("http://localhost:8080/users"));
+    }
+
+    @Benchmark
+    public void serialize() throws Exception {
+        halWriter.writeValue(OutputStream.nullOutputStream(), collectionModel);
+    }
+}
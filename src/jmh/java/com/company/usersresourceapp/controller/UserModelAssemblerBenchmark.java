@@ -0,0 +1,86 @@
+package com.company.usersresourceapp.controller;
+
+import com.company.usersresourceapp.model.User;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+/**
+ * Cost of building the HATEOAS links of users within a servlet request, like in {@link UserController}:
+ * for a single user and for a listing of 10k users, each served by a fresh request.
+ * The {@code legacy} variants build both links with {@code linkTo(methodOn(...))} for every user.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class UserModelAssemblerBenchmark {
+    private static final int LISTING_SIZE = 10_000;
+
+    private UserModelAssembler userModelAssembler;
+
+    private User user;
+
+    private List<User> users;
+
+    @Setup
+    public void setUp() {
+        userModelAssembler = new UserModelAssembler();
+        user = new User("test@example.com", "John", "Doe", new Date(0));
+        user.setId(42L);
+        users = new ArrayList<>(LISTING_SIZE);
+        for (long id = 1; id <= LISTING_SIZE; id++) {
+            User listedUser = new User("user" + id + "@example.com", "John", "Doe", new Date(0));
+            listedUser.setId(id);
+            users.add(listedUser);
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void startRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/users");
+        request.setServerName("localhost");
+        request.setServerPort(8080);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    @TearDown(Level.Invocation)
+    public void endRequest() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Benchmark
+    public EntityModel<User> toModel() {
+        return userModelAssembler.toModel(user);
+    }
+
+    @Benchmark
+    public EntityModel<User> legacyToModel() {
+        return legacyToModel(user);
+    }
+
+    @Benchmark
+    public List<EntityModel<User>> toModelListing() {
+        return users.stream().map(userModelAssembler::toModel).toList();
+    }
+
+    @Benchmark
+    public List<EntityModel<User>> legacyToModelListing() {
+        return users.stream().map(UserModelAssemblerBenchmark::legacyToModel).toList();
+    }
+
+    private static EntityModel<User> legacyToModel(User user) {
+        return EntityModel.of(user,
+                linkTo(methodOn(UserController.class).getUser(user.getId(), null)).withSelfRel(),
+                linkTo(methodOn(UserController.class).getAllUsers(null, null, null, null)).withRel("users").expand());
+    }
+}
@@ -0,0 +1,99 @@
+package com.company.usersresourceapp.controller;
+
+import com.company.usersresourceapp.config.BinaryWireFormatConfiguration;
+import com.company.usersresourceapp.model.User;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.mediatype.MessageResolver;
+import org.springframework.hateoas.mediatype.hal.CurieProvider;
+import org.springframework.hateoas.mediatype.hal.Jackson2HalModule;
+import org.springframework.hateoas.server.core.DefaultLinkRelationProvider;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A page of the user listing, as written by {@link UserController#getAllUsers}, in each wire format a client
+ * can negotiate: HAL JSON, the default, and the binary CBOR and Smile. Encoding writes the page to bytes,
+ * decoding reads them back like a client would. The size of the encoded page is printed at setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class UserWireFormatBenchmark {
+    private static final TypeReference<CollectionModel<EntityModel<User>>> USERS = new TypeReference<>() {
+    };
+
+    @Param({"hal-json", "cbor", "smile"})
+    private String format;
+
+    @Param({"20", "1000"})
+    private int users;
+
+    private ObjectWriter writer;
+
+    private ObjectReader reader;
+
+    private CollectionModel<EntityModel<User>> collectionModel;
+
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() throws Exception {
+        ObjectMapper objectMapper = switch (format) {
+            case "hal-json" -> halObjectMapper();
+            case "cbor" -> BinaryWireFormatConfiguration.binaryObjectMapper(new Jackson2ObjectMapperBuilder(),
+                    new CBORFactory(), halHandlerInstantiator());
+            case "smile" -> BinaryWireFormatConfiguration.binaryObjectMapper(new Jackson2ObjectMapperBuilder(),
+                    new SmileFactory(), halHandlerInstantiator());
+            default -> throw new IllegalArgumentException("Unknown format " + format);
+        };
+        writer = objectMapper.writerFor(USERS);
+        reader = objectMapper.readerFor(USERS);
+        List<EntityModel<User>> models = new ArrayList<>(users);
+        for (long id = 1; id <= users; id++) {
+            User user = new User("user" + id + "@example.com", "John", "Doe", new Date(631152000000L));
+            user.setId(id);
+            user.setAddress("Main street " + id);
+            models.add(EntityModel.of(user,
+                    Link.of("http://localhost:8080/users/" + id),
+                    Link.of("http://localhost:8080/users", "users")));
+        }
+        collectionModel = CollectionModel.of(models, Link.of("http://localhost:8080/users?after=0&limit=" + users),
+                Link.of("http://localhost:8080/users?after=" + users + "&limit=" + users, "next"));
+        encoded = writer.writeValueAsBytes(collectionModel);
+        System.out.printf("%n%s, %d users: %d bytes%n", format, users, encoded.length);
+    }
+
+    @Benchmark
+    public byte[] encode() throws Exception {
+        return writer.writeValueAsBytes(collectionModel);
+    }
+
+    @Benchmark
+    public CollectionModel<EntityModel<User>> decode() throws Exception {
+        return reader.readValue(encoded);
+    }
+
+    private static ObjectMapper halObjectMapper() {
+        ObjectMapper halObjectMapper = new ObjectMapper().registerModule(new Jackson2HalModule());
+        halObjectMapper.setHandlerInstantiator(halHandlerInstantiator());
+        return halObjectMapper;
+    }
+
+    private static Jackson2HalModule.HalHandlerInstantiator halHandlerInstantiator() {
+        return new Jackson2HalModule.HalHandlerInstantiator(
+                new DefaultLinkRelationProvider(), CurieProvider.NONE, MessageResolver.DEFAULTS_ONLY);
+    }
+}
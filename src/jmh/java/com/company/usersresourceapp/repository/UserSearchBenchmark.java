@@ -0,0 +1,107 @@
+package com.company.usersresourceapp.repository;
+
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of one page of a birth date range search, as issued for {@code GET /users/search},
+ * over 1M users in the schema created by the Flyway migrations, with and without the birth date index.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class UserSearchBenchmark {
+    private static final int USERS = 1_000_000;
+
+    private static final String SEARCH = "select * from user where birth_date between ? and ? "
+            + "order by birth_date, id offset ? rows fetch first 21 rows only";
+
+    @Param({"true", "false"})
+    private boolean indexed;
+
+    private Connection connection;
+
+    private PreparedStatement search;
+
+    private Timestamp from;
+
+    private Timestamp to;
+
+    @Setup
+    public void setUp() throws SQLException {
+        String url = "jdbc:h2:mem:search" + indexed + ";NON_KEYWORDS=user;DB_CLOSE_DELAY=-1;OPTIMIZE_REUSE_RESULTS=FALSE";
+        Flyway.configure().dataSource(url, "sa", "").load().migrate();
+        connection = DriverManager.getConnection(url, "sa", "");
+        if (!indexed) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("drop index idx_user_birth_date");
+            }
+        }
+        seed();
+        search = connection.prepareStatement(SEARCH);
+        from = Timestamp.valueOf(LocalDate.of(1980, 1, 1).atStartOfDay());
+        to = Timestamp.valueOf(LocalDate.of(1990, 1, 1).atStartOfDay());
+    }
+
+    private void seed() throws SQLException {
+        connection.setAutoCommit(false);
+        Random random = new Random(42);
+        long firstDay = LocalDate.of(1940, 1, 1).toEpochDay();
+        int days = (int) (LocalDate.of(2005, 1, 1).toEpochDay() - firstDay);
+        try (PreparedStatement insert = connection.prepareStatement(
+                "insert into user (id, email, first_name, last_name, birth_date) values (?, ?, ?, ?, ?)")) {
+            for (int id = 1; id <= USERS; id++) {
+                insert.setLong(1, id);
+                insert.setString(2, "user" + id + "@example.com");
+                insert.setString(3, "John");
+                insert.setString(4, "Doe");
+                insert.setTimestamp(5, Timestamp.valueOf(
+                        LocalDate.ofEpochDay(firstDay + random.nextInt(days)).atStartOfDay()));
+                insert.addBatch();
+                if (id % 10_000 == 0) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+        connection.commit();
+        connection.setAutoCommit(true);
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("shutdown");
+        }
+    }
+
+    @Benchmark
+    public int firstPage() throws SQLException {
+        return page(0);
+    }
+
+    @Benchmark
+    public int hundredthPage() throws SQLException {
+        return page(99 * 20);
+    }
+
+    private int page(int offset) throws SQLException {
+        search.setTimestamp(1, from);
+        search.setTimestamp(2, to);
+        search.setInt(3, offset);
+        int rows = 0;
+        try (ResultSet resultSet = search.executeQuery()) {
+            while (resultSet.next()) {
+                rows++;
+            }
+        }
+        return rows;
+    }
+}
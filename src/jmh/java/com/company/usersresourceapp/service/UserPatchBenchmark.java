@@ -0,0 +1,77 @@
+package com.company.usersresourceapp.service;
+
+import com.company.usersresourceapp.model.User;
+import com.company.usersresourceapp.repository.UserRepository;
+import com.company.usersresourceapp.util.UserFieldSetters;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validation;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.util.Date;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PATCH hot path: {@link UserService#updateUserByFields} end to end (over an in-memory repository),
+ * the precompiled {@link UserFieldSetters} alone, and the field-by-field reflection it replaced.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UserPatchBenchmark {
+    private final Map<Object, Object> fields = Map.of("firstName", "Jane", "phoneNumber", "1234567890");
+
+    private User user;
+
+    private UserFieldSetters userFieldSetters;
+
+    private UserService userService;
+
+    @Setup
+    public void setUp() {
+        user = new User("test@example.com", "John", "Doe", new Date(0));
+        user.setId(1L);
+        userFieldSetters = new UserFieldSetters(new ObjectMapper());
+        UserRepository userRepository = (UserRepository) Proxy.newProxyInstance(
+                UserRepository.class.getClassLoader(), new Class<?>[]{UserRepository.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "findById" -> Optional.of(user);
+                    case "updateUser" -> Optional.of(args[0]);
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        EntityManager entityManager = (EntityManager) Proxy.newProxyInstance(
+                EntityManager.class.getClassLoader(), new Class<?>[]{EntityManager.class},
+                (proxy, method, args) -> null);
+        userService = new UserService(userRepository, entityManager,
+                Validation.buildDefaultValidatorFactory().getValidator(), null, userFieldSetters,
+                new UserTextIndex(userRepository, null, null), new UserSnapshotStore(userRepository, null, null),
+                new NoOpCacheManager());
+    }
+
+    @Benchmark
+    public User updateUserByFields() {
+        return userService.updateUserByFields(fields, 1L, null);
+    }
+
+    @Benchmark
+    public User setterTable() {
+        userFieldSetters.apply(user, fields);
+        return user;
+    }
+
+    @Benchmark
+    public User reflection() {
+        fields.forEach((key, value) -> {
+            Field field = ReflectionUtils.findField(User.class, (String) key);
+            field.setAccessible(true);
+            ReflectionUtils.setField(field, user, value);
+        });
+        return user;
+    }
+}
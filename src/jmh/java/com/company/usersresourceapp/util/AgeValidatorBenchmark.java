@@ -0,0 +1,32 @@
+package com.company.usersresourceapp.util;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one {@link AgeValidator#isValid} call for a valid date of birth, run it with {@code -prof gc}
+ * to see the allocation rate.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AgeValidatorBenchmark {
+    private AgeValidator ageValidator;
+
+    private Date dateOfBirth;
+
+    @Setup
+    public void setUp() {
+        ageValidator = new AgeValidator();
+        ageValidator.setMinimumAge(18);
+        dateOfBirth = new Date(0);
+    }
+
+    @Benchmark
+    public boolean isValid() {
+        // The context is only used to report a violation, which a valid date never does
+        return ageValidator.isValid(dateOfBirth, null);
+    }
+}
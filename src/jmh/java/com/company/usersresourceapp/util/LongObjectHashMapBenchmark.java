@@ -0,0 +1,89 @@
+package com.company.usersresourceapp.util;
+
+import com.company.usersresourceapp.model.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Lookups of users by id in a {@link LongObjectHashMap} and in a {@code HashMap<Long, User>}, with as many users
+ * as {@code size}. Ids are sequential, like those of the sequence, and every entry shares the same user so that
+ * only the map is measured. The heap taken by each map, per entry, is printed when it is built.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(jvmArgsAppend = "-Xmx4g")
+public class LongObjectHashMapBenchmark {
+    // Enough random ids for lookups to miss the CPU caches, like lookups of a large user set do
+    private static final int PROBES = 1 << 20;
+
+    @Param("10000000")
+    private int size;
+
+    private LongObjectHashMap<User> primitiveMap;
+
+    private Map<Long, User> boxedMap;
+
+    private long[] probes;
+
+    private int probe;
+
+    @Setup
+    public void setUp() {
+        User user = new User();
+        primitiveMap = measure("LongObjectHashMap", () -> {
+            LongObjectHashMap<User> map = new LongObjectHashMap<>();
+            for (long id = 1; id <= size; id++) {
+                map.put(id, user);
+            }
+            return map;
+        });
+        boxedMap = measure("HashMap<Long, User>", () -> {
+            Map<Long, User> map = new HashMap<>();
+            for (long id = 1; id <= size; id++) {
+                map.put(id, user);
+            }
+            return map;
+        });
+        Random random = new Random(42);
+        probes = new long[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            probes[i] = 1 + random.nextInt(size);
+        }
+    }
+
+    @Benchmark
+    public User getPrimitive() {
+        return primitiveMap.get(nextProbe());
+    }
+
+    @Benchmark
+    public User getBoxed() {
+        return boxedMap.get(nextProbe());
+    }
+
+    private long nextProbe() {
+        return probes[probe++ & (PROBES - 1)];
+    }
+
+    private <T> T measure(String name, Supplier<T> build) {
+        long before = usedHeap();
+        T map = build.get();
+        long after = usedHeap();
+        System.out.printf("%s: %.1f bytes per entry%n", name, (after - before) / (double) size);
+        return map;
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
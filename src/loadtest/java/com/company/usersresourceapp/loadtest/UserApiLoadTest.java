@@ -0,0 +1,189 @@
+package com.company.usersresourceapp.loadtest;
+
+import com.company.usersresourceapp.UsersResourceAppApplication;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Closed-loop load test of {@code GET /users/{id}} and {@code POST /users}, comparing the platform and virtual
+ * execution modes of the servlet stack with the reactive stack (WebFlux and R2DBC, the {@code reactive} profile).
+ * For every mode the application is started on a random port, then every scenario is run with each number
+ * of concurrent clients; each client sends its next request as soon as the previous one completed.
+ * {@code POST /users/batch} creates {@code loadtest.batch-size} users per request (default 100), to compare the users
+ * created per second with {@code POST /users}.
+ * <p>
+ * Settings (system properties): {@code loadtest.modes} (default {@code platform,virtual,reactive}),
+ * {@code loadtest.clients} (default {@code 1000,10000}), {@code loadtest.duration} and {@code loadtest.warmup}
+ * in seconds (defaults 20 and 5). Results are printed and written to {@code target/loadtest-result.json}.
+ */
+public class UserApiLoadTest {
+    private static final int SEEDED_USERS = 1000;
+
+    private static final int BATCH_SIZE = Integer.getInteger("loadtest.batch-size", 100);
+
+    private static final AtomicLong EMAIL_SEQUENCE = new AtomicLong();
+
+    public static void main(String[] args) throws Exception {
+        List<String> modes = List.of(System.getProperty("loadtest.modes", "platform,virtual,reactive").split(","));
+        List<String> clients = List.of(System.getProperty("loadtest.clients", "1000,10000").split(","));
+        Duration duration = Duration.ofSeconds(Long.getLong("loadtest.duration", 20));
+        Duration warmup = Duration.ofSeconds(Long.getLong("loadtest.warmup", 5));
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (String mode : modes) {
+            try (ConfigurableApplicationContext context = start(mode)) {
+                int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+                HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+                URI users = URI.create("http://localhost:" + port + "/users");
+                long[] ids = seed(httpClient, users);
+                List<Scenario> scenarios = List.of(
+                        new Scenario("GET /users/{id}", 1, () -> HttpRequest.newBuilder(
+                                users.resolve("/users/" + ids[ThreadLocalRandom.current().nextInt(ids.length)])).GET().build()),
+                        new Scenario("POST /users", 1, () -> HttpRequest.newBuilder(users)
+                                .header("Content-Type", "application/json")
+                                .POST(HttpRequest.BodyPublishers.ofString(newUser())).build()),
+                        new Scenario("POST /users/batch", BATCH_SIZE, () -> HttpRequest.newBuilder(users.resolve("/users/batch"))
+                                .header("Content-Type", "application/x-ndjson")
+                                .POST(HttpRequest.BodyPublishers.ofString(newUsers(BATCH_SIZE))).build()));
+                for (Scenario scenario : scenarios) {
+                    for (String clientCount : clients) {
+                        int concurrency = Integer.parseInt(clientCount.trim());
+                        run(httpClient, scenario.requests(), concurrency, warmup);
+                        Map<String, Object> result = run(httpClient, scenario.requests(), concurrency, duration);
+                        result.put("mode", mode);
+                        result.put("scenario", scenario.name());
+                        result.put("clients", concurrency);
+                        result.put("usersPerSecond", (double) result.get("throughput") * scenario.usersPerRequest());
+                        results.add(result);
+                        System.out.printf("%-9s %-18s %6d clients: %9.0f req/s %9.0f users/s  p50 %7.2f ms  p99 %8.2f ms  errors %d%n",
+                                mode, scenario.name(), concurrency, result.get("throughput"), result.get("usersPerSecond"),
+                                result.get("p50Millis"), result.get("p99Millis"), result.get("errors"));
+                    }
+                }
+            }
+        }
+        File output = new File("target/loadtest-result.json");
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(output, results);
+        System.out.println("Results written to " + output.getAbsolutePath());
+        System.exit(0);
+    }
+
+    private static ConfigurableApplicationContext start(String mode) {
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(UsersResourceAppApplication.class)
+                .properties("server.port=0", "logging.level.root=warn", "spring.devtools.restart.enabled=false",
+                        "spring.datasource.url=jdbc:h2:mem:loadtest-" + mode + ";NON_KEYWORDS=user");
+        if ("virtual".equals(mode)) {
+            builder.profiles("virtual");
+        } else if ("reactive".equals(mode)) {
+            builder.profiles("reactive").properties(
+                    "spring.r2dbc.url=r2dbc:h2:mem:///loadtest-reactive?options=NON_KEYWORDS=user;DB_CLOSE_DELAY=-1",
+                    "spring.flyway.url=jdbc:h2:mem:loadtest-reactive;NON_KEYWORDS=user;DB_CLOSE_DELAY=-1");
+        }
+        return builder.run();
+    }
+
+    /**
+     * Creates the users read by the scenarios and returns their ids, which depend on how the stack allocates them.
+     */
+    private static long[] seed(HttpClient httpClient, URI users) throws IOException, InterruptedException {
+        HttpResponse<String> response = httpClient.send(HttpRequest.newBuilder(users.resolve("/users/batch"))
+                .header("Content-Type", "application/x-ndjson")
+                .POST(HttpRequest.BodyPublishers.ofString(newUsers(SEEDED_USERS))).build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Could not seed users: " + response.body());
+        }
+        long[] ids = new ObjectMapper().readTree(response.body()).findValues("id").stream()
+                .mapToLong(JsonNode::asLong)
+                .toArray();
+        if (ids.length != SEEDED_USERS) {
+            throw new IllegalStateException("Could not seed users: " + response.body());
+        }
+        return ids;
+    }
+
+    private static String newUser() {
+        return "{\"email\":\"load" + EMAIL_SEQUENCE.incrementAndGet()
+                + "@example.com\",\"firstName\":\"John\",\"lastName\":\"Doe\",\"birthDate\":\"1990-01-01\"}";
+    }
+
+    /**
+     * @return an NDJSON body of the given number of new users
+     */
+    private static String newUsers(int count) {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            body.append(newUser()).append('\n');
+        }
+        return body.toString();
+    }
+
+    private static Map<String, Object> run(HttpClient httpClient, Supplier<HttpRequest> requests, int concurrency,
+                                           Duration duration) throws InterruptedException {
+        Histogram latencies = new ConcurrentHistogram(TimeUnit.MINUTES.toNanos(1), 3);
+        LongAdder errors = new LongAdder();
+        long deadline = System.nanoTime() + duration.toNanos();
+        List<CompletableFuture<Void>> clients = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            CompletableFuture<Void> done = new CompletableFuture<>();
+            sendNext(httpClient, requests, deadline, latencies, errors, done);
+            clients.add(done);
+        }
+        CompletableFuture.allOf(clients.toArray(CompletableFuture[]::new)).join();
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("requests", latencies.getTotalCount());
+        result.put("throughput", latencies.getTotalCount() / (double) duration.toSeconds());
+        result.put("p50Millis", latencies.getValueAtPercentile(50) / 1e6);
+        result.put("p99Millis", latencies.getValueAtPercentile(99) / 1e6);
+        result.put("p999Millis", latencies.getValueAtPercentile(99.9) / 1e6);
+        result.put("errors", errors.sum());
+        return result;
+    }
+
+    private static void sendNext(HttpClient httpClient, Supplier<HttpRequest> requests, long deadline,
+                                 Histogram latencies, LongAdder errors, CompletableFuture<Void> done) {
+        if (System.nanoTime() >= deadline) {
+            done.complete(null);
+            return;
+        }
+        long start = System.nanoTime();
+        httpClient.sendAsync(requests.get(), HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, failure) -> {
+                    if (failure != null || response.statusCode() >= 400) {
+                        errors.increment();
+                    } else {
+                        latencies.recordValue(Math.min(System.nanoTime() - start, latencies.getHighestTrackableValue()));
+                    }
+                    sendNext(httpClient, requests, deadline, latencies, errors, done);
+                });
+    }
+
+    /**
+     * @param usersPerRequest users read or created by each request
+     */
+    private record Scenario(String name, int usersPerRequest, Supplier<HttpRequest> requests) {
+    }
+}
@@ -0,0 +1,90 @@
+package com.company.usersresourceapp.config;
+
+import com.company.usersresourceapp.util.EpochDayDateModule;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.cfg.HandlerInstantiator;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.hateoas.mediatype.MessageResolver;
+import org.springframework.hateoas.mediatype.hal.CurieProvider;
+import org.springframework.hateoas.mediatype.hal.HalConfiguration;
+import org.springframework.hateoas.mediatype.hal.Jackson2HalModule;
+import org.springframework.hateoas.server.LinkRelationProvider;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Binary encodings of the users resources for the internal callers, negotiated with the {@code Accept} and
+ * {@code Content-Type} headers: CBOR ({@code application/cbor}) and Smile ({@code application/x-jackson-smile}).
+ * They carry the same HAL documents as JSON, {@code _links} and {@code _embedded} included, with dates as epoch days,
+ * and HAL JSON stays the default.
+ * The converters replace the ones Spring MVC adds by default, and are built from the application's
+ * Jackson settings. A response of the users resources varies with the {@code Accept} header of the request.
+ */
+@Configuration
+@Profile("!reactive")
+public class BinaryWireFormatConfiguration implements WebMvcConfigurer {
+    private final HandlerInstantiator halHandlerInstantiator;
+
+    public BinaryWireFormatConfiguration(LinkRelationProvider linkRelationProvider,
+                                         ObjectProvider<CurieProvider> curieProvider, MessageResolver messageResolver,
+                                         ObjectProvider<HalConfiguration> halConfiguration,
+                                         AutowireCapableBeanFactory beanFactory) {
+        // Set up like the instantiator of the HAL JSON object mapper of Spring HATEOAS
+        this.halHandlerInstantiator = new Jackson2HalModule.HalHandlerInstantiator(linkRelationProvider,
+                curieProvider.getIfAvailable(() -> CurieProvider.NONE), messageResolver,
+                halConfiguration.getIfAvailable(HalConfiguration::new), beanFactory);
+    }
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(
+                binaryObjectMapper(builder, new CBORFactory(), halHandlerInstantiator));
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(
+                binaryObjectMapper(builder, new SmileFactory(), halHandlerInstantiator));
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new HandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                // Also on a 304 Not Modified, whose entity tag depends on the encoding
+                response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+                return true;
+            }
+        }).addPathPatterns("/users", "/users/**");
+    }
+
+    /**
+     * @param builder builder of the application's object mappers, used up
+     * @param factory factory of the binary format
+     * @param halHandlerInstantiator creates the serializers of the HAL module, which need the link relations
+     */
+    public static ObjectMapper binaryObjectMapper(Jackson2ObjectMapperBuilder builder, JsonFactory factory,
+                                                  HandlerInstantiator halHandlerInstantiator) {
+        return builder.factory(factory)
+                .postConfigurer(objectMapper -> objectMapper
+                        .registerModule(new Jackson2HalModule())
+                        .registerModule(new EpochDayDateModule())
+                        .setHandlerInstantiator(halHandlerInstantiator))
+                .build();
+    }
+}
@@ -0,0 +1,58 @@
+package com.company.usersresourceapp.config;
+
+import com.company.usersresourceapp.util.StatementCounter;
+import net.ttddyy.dsproxy.proxy.ProxyJdbcObject;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+import javax.sql.DataSource;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Routes every JDBC statement of the application's {@link DataSource} through a proxy that reports it to
+ * the {@link StatementCounter}, which feeds the per-request statement metrics and the slow request warnings
+ * of {@link RequestMetricsConfiguration}, and lets tests assert how many statements a call issues.
+ */
+@Configuration
+@ImportRuntimeHints(DataSourceProxyConfiguration.JdbcProxyHints.class)
+public class DataSourceProxyConfiguration {
+    @Bean
+    public static BeanPostProcessor dataSourceProxyPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)) {
+                    return ProxyDataSourceBuilder.create(dataSource)
+                            .name(beanName)
+                            .listener(new StatementCounter())
+                            .build();
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * JDK proxies that the data source proxy creates around the JDBC objects, which a native image must know of.
+     */
+    static class JdbcProxyHints implements RuntimeHintsRegistrar {
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            for (Class<?> jdbcType : List.of(Connection.class, Statement.class, PreparedStatement.class,
+                    CallableStatement.class, ResultSet.class)) {
+                hints.proxies().registerJdkProxy(ProxyJdbcObject.class, jdbcType);
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.company.usersresourceapp.config;
+
+import com.company.usersresourceapp.repository.UserRepository;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+
+/**
+ * JPA repositories of the servlet stack. {@link com.company.usersresourceapp.model.User} is a JPA entity,
+ * so the repositories of the {@code reactive} profile must be left out explicitly.
+ */
+@Configuration
+@Profile("!reactive")
+@EnableJpaRepositories(basePackageClasses = UserRepository.class, excludeFilters = @ComponentScan.Filter(
+        type = FilterType.ASSIGNABLE_TYPE, classes = ReactiveCrudRepository.class))
+public class JpaRepositoriesConfiguration {
+}
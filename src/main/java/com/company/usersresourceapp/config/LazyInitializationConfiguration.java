@@ -0,0 +1,23 @@
+package com.company.usersresourceapp.config;
+
+import com.company.usersresourceapp.controller.UserController;
+import com.company.usersresourceapp.service.UserWriteBehindLog;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Beans still created at startup when {@code spring.main.lazy-initialization} is set, see the {@code lazy} profile:
+ * the controller, so that the persistence stack behind it is ready before the first request rather than built
+ * by it, and the write-behind log, which replays its pending creations when it starts. Everything else, such as
+ * the actuator endpoints, is only created when first used.
+ */
+@Configuration
+@Profile("!reactive")
+public class LazyInitializationConfiguration {
+    @Bean
+    public static LazyInitializationExcludeFilter eagerUserBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(UserController.class, UserWriteBehindLog.class);
+    }
+}
@@ -0,0 +1,132 @@
+package com.company.usersresourceapp.config;
+
+import io.r2dbc.spi.ConnectionFactory;
+import jakarta.persistence.Version;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.ReadingConverter;
+import org.springframework.data.convert.WritingConverter;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.r2dbc.convert.R2dbcCustomConversions;
+import org.springframework.data.r2dbc.dialect.DialectResolver;
+import org.springframework.data.r2dbc.mapping.R2dbcMappingContext;
+import org.springframework.data.mapping.model.Property;
+import org.springframework.data.mapping.model.SimpleTypeHolder;
+import org.springframework.data.relational.core.mapping.BasicRelationalPersistentProperty;
+import org.springframework.data.relational.core.mapping.NamingStrategy;
+import org.springframework.data.relational.core.mapping.RelationalPersistentEntity;
+import org.springframework.data.relational.core.mapping.RelationalPersistentProperty;
+import org.springframework.data.web.ReactivePageableHandlerMethodArgumentResolver;
+import org.springframework.data.web.ReactiveSortHandlerMethodArgumentResolver;
+import org.springframework.hateoas.config.EnableHypermediaSupport;
+import org.springframework.hateoas.config.EnableHypermediaSupport.HypermediaType;
+import org.springframework.hateoas.support.WebStack;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+import org.springframework.web.reactive.result.method.annotation.ArgumentResolverConfigurer;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * WebFlux and R2DBC setup of the {@code reactive} profile: HAL rendering and {@code Pageable} parameters,
+ * which Spring Boot only configures for the servlet stack, and {@link Date} columns, which R2DBC drivers don't bind.
+ */
+@Configuration
+@Profile("reactive")
+@EnableHypermediaSupport(type = HypermediaType.HAL, stacks = WebStack.WEBFLUX)
+public class ReactiveConfiguration implements WebFluxConfigurer {
+    @Value("${default.users.page.size}")
+    private int defaultPageSize;
+
+    @Value("${maximum.users.page.size}")
+    private int maximumPageSize;
+
+    @Override
+    public void configureArgumentResolvers(ArgumentResolverConfigurer configurer) {
+        ReactiveSortHandlerMethodArgumentResolver sortResolver = new ReactiveSortHandlerMethodArgumentResolver();
+        ReactivePageableHandlerMethodArgumentResolver pageableResolver =
+                new ReactivePageableHandlerMethodArgumentResolver(sortResolver);
+        pageableResolver.setFallbackPageable(PageRequest.ofSize(defaultPageSize));
+        pageableResolver.setMaxPageSize(maximumPageSize);
+        configurer.addCustomResolver(sortResolver, pageableResolver);
+    }
+
+    @Bean
+    public R2dbcCustomConversions r2dbcCustomConversions(ConnectionFactory connectionFactory) {
+        return R2dbcCustomConversions.of(DialectResolver.getDialect(connectionFactory),
+                List.of(DateToLocalDateTimeConverter.INSTANCE, LocalDateTimeToDateConverter.INSTANCE));
+    }
+
+    /**
+     * Quotes every table and column name: H2 only accepts {@code USER} as a qualifier when it is quoted.
+     * Quoted names are case-sensitive, so they are upper-cased like H2 does for the unquoted names of the migrations.
+     * The JPA {@link Version} of an entity is its R2DBC version as well, Spring Data JPA rejects a second annotation.
+     */
+    @Bean
+    public R2dbcMappingContext r2dbcMappingContext(R2dbcCustomConversions r2dbcCustomConversions) {
+        R2dbcMappingContext mappingContext = new JpaVersionMappingContext(new NamingStrategy() {
+            @Override
+            public String getTableName(Class<?> type) {
+                return NamingStrategy.super.getTableName(type).toUpperCase(Locale.ROOT);
+            }
+
+            @Override
+            public String getColumnName(RelationalPersistentProperty property) {
+                return NamingStrategy.super.getColumnName(property).toUpperCase(Locale.ROOT);
+            }
+        });
+        mappingContext.setForceQuote(true);
+        mappingContext.setSimpleTypeHolder(r2dbcCustomConversions.getSimpleTypeHolder());
+        return mappingContext;
+    }
+
+    private static class JpaVersionMappingContext extends R2dbcMappingContext {
+        JpaVersionMappingContext(NamingStrategy namingStrategy) {
+            super(namingStrategy);
+        }
+
+        @Override
+        protected RelationalPersistentProperty createPersistentProperty(Property property,
+                                                                        RelationalPersistentEntity<?> owner,
+                                                                        SimpleTypeHolder simpleTypeHolder) {
+            BasicRelationalPersistentProperty persistentProperty = new BasicRelationalPersistentProperty(
+                    property, owner, simpleTypeHolder, getNamingStrategy()) {
+                @Override
+                public boolean isVersionProperty() {
+                    return super.isVersionProperty() || isAnnotationPresent(Version.class);
+                }
+            };
+            persistentProperty.setForceQuote(isForceQuote());
+            return persistentProperty;
+        }
+    }
+
+    /**
+     * Writes dates the way JDBC does for a {@code timestamp} column, in the default time zone.
+     */
+    @WritingConverter
+    enum DateToLocalDateTimeConverter implements Converter<Date, LocalDateTime> {
+        INSTANCE;
+
+        @Override
+        public LocalDateTime convert(Date source) {
+            return new Timestamp(source.getTime()).toLocalDateTime();
+        }
+    }
+
+    @ReadingConverter
+    enum LocalDateTimeToDateConverter implements Converter<LocalDateTime, Date> {
+        INSTANCE;
+
+        @Override
+        public Date convert(LocalDateTime source) {
+            return Timestamp.valueOf(source);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.company.usersresourceapp.config;
+
+import com.company.usersresourceapp.util.StatementCounter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Records how many SQL statements each request runs, as the {@code users.request.statements} distribution,
+ * tagged with the method and the route like {@code http.server.requests}, and logs a warning for a request
+ * that runs more than {@code request.warn.statements} statements, runs the same statement more than that many
+ * times (an N+1 problem), or takes longer than {@code request.warn.duration}.
+ * Statements are counted by the {@link StatementCounter} of the request thread, so counting costs an increment.
+ */
+@Configuration
+@Profile("!reactive")
+public class RequestMetricsConfiguration implements WebMvcConfigurer {
+    private final StatementMetrics statementMetrics;
+
+    public RequestMetricsConfiguration(MeterRegistry meterRegistry,
+                                       @Value("${request.warn.statements}") int warnStatements,
+                                       @Value("${request.warn.duration}") Duration warnDuration) {
+        this.statementMetrics = new StatementMetrics(meterRegistry, warnStatements, warnDuration);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(statementMetrics);
+    }
+
+    @Slf4j
+    static final class StatementMetrics implements AsyncHandlerInterceptor {
+        private static final String COUNTING_ATTRIBUTE = StatementMetrics.class.getName() + ".COUNTING";
+
+        private static final String START_ATTRIBUTE = StatementMetrics.class.getName() + ".START";
+
+        private final MeterRegistry meterRegistry;
+
+        private final int warnStatements;
+
+        private final long warnNanos;
+
+        StatementMetrics(MeterRegistry meterRegistry, int warnStatements, Duration warnDuration) {
+            this.meterRegistry = meterRegistry;
+            this.warnStatements = warnStatements;
+            this.warnNanos = warnDuration.toNanos();
+        }
+
+        @Override
+        public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+            if (request.getDispatcherType() == DispatcherType.ASYNC) {
+                // Already recorded when the request went asynchronous
+                return true;
+            }
+            request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+            request.setAttribute(COUNTING_ATTRIBUTE, StatementCounter.start());
+            return true;
+        }
+
+        @Override
+        public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                    Exception ex) {
+            StatementCounter.Counting counting = (StatementCounter.Counting) request.getAttribute(COUNTING_ATTRIBUTE);
+            if (counting == null) {
+                return;
+            }
+            counting.close();
+            request.removeAttribute(COUNTING_ATTRIBUTE);
+            long elapsedNanos = System.nanoTime() - (Long) request.getAttribute(START_ATTRIBUTE);
+            Object route = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String uri = route == null ? "UNKNOWN" : route.toString();
+            DistributionSummary.builder("users.request.statements")
+                    .description("SQL statements run per request")
+                    .baseUnit("statements")
+                    .tag("method", request.getMethod())
+                    .tag("uri", uri)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(counting.statements());
+
+            if (counting.statements() > warnStatements || elapsedNanos > warnNanos) {
+                Map.Entry<String, Integer> mostRepeated = counting.mostRepeated();
+                log.warn("{} {} ({}) ran {} statements in {} ms, {} ms in total{}", request.getMethod(), uri,
+                        request.getRequestURI(), counting.statements(), counting.elapsedMillis(),
+                        Duration.ofNanos(elapsedNanos).toMillis(),
+                        mostRepeated != null && mostRepeated.getValue() > warnStatements
+                                ? ", possible N+1: " + mostRepeated.getValue() + " times " + mostRepeated.getKey()
+                                : "");
+            }
+        }
+
+        @Override
+        public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                                   Object handler) {
+            // Streamed responses are written on another thread, only the statements run so far are recorded
+            afterCompletion(request, response, handler, null);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.company.usersresourceapp.config;
+
+import com.company.usersresourceapp.service.UserService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps the bytes of the latest listing and search responses, {@code GET /users}, {@code /users/search} and
+ * {@code /users/search/text}, so that pollers asking again for an unchanged page get a copy of them, with no query
+ * and no serialization. A response is cached per URL, {@code Accept} header and content coding, gzipped once if
+ * the client accepts gzip, and served as long as the version of the users collection, which every write through
+ * {@link UserService} changes, is the one it was rendered at. A gzipped copy is tagged apart from the identity one,
+ * with {@code -gzip} after the entity tag of the page, since their bytes differ. The cache holds up to
+ * {@code users.response-cache.maximum-size} of responses and can be turned off with {@code users.response-cache.enabled}.
+ */
+@Configuration
+@Profile("!reactive")
+public class ResponseCacheConfiguration {
+    @Bean
+    public FilterRegistrationBean<UserResponseCache> userResponseCache(
+            UserService userService, MeterRegistry meterRegistry,
+            @Value("${users.response-cache.enabled}") boolean enabled,
+            @Value("${users.response-cache.maximum-size}") DataSize maximumSize) {
+        FilterRegistrationBean<UserResponseCache> registration =
+                new FilterRegistrationBean<>(new UserResponseCache(userService, meterRegistry, maximumSize));
+        registration.addUrlPatterns("/users", "/users/search", "/users/search/text");
+        registration.setEnabled(enabled);
+        return registration;
+    }
+
+    static final class UserResponseCache extends OncePerRequestFilter {
+        private static final String GZIP = "gzip";
+
+        private static final String IDENTITY = "identity";
+
+        private final UserService userService;
+
+        private final Cache<Key, CachedResponse> responses;
+
+        UserResponseCache(UserService userService, MeterRegistry meterRegistry, DataSize maximumSize) {
+            this.userService = userService;
+            this.responses = Caffeine.newBuilder()
+                    .maximumWeight(maximumSize.toBytes())
+                    .weigher((Key key, CachedResponse response) -> response.body().length + key.url().length())
+                    .recordStats()
+                    .build();
+            CaffeineCacheMetrics.monitor(meterRegistry, responses, "users.responses");
+        }
+
+        @Override
+        protected boolean shouldNotFilter(HttpServletRequest request) {
+            return !HttpMethod.GET.matches(request.getMethod());
+        }
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+                throws ServletException, IOException {
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            String version = userService.getUsersVersion();
+            StringBuffer url = request.getRequestURL();
+            if (request.getQueryString() != null) {
+                url.append('?').append(request.getQueryString());
+            }
+            Key key = new Key(url.toString(), request.getHeader(HttpHeaders.ACCEPT),
+                    acceptsGzip(request) ? GZIP : IDENTITY);
+            CachedResponse cached = responses.getIfPresent(key);
+            if (cached != null && cached.version().equals(version)) {
+                response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+                if (!new ServletWebRequest(request, response).checkNotModified(cached.eTag())) {
+                    cached.writeTo(response);
+                }
+                return;
+            }
+
+            ContentCachingResponseWrapper rendered = new ContentCachingResponseWrapper(response);
+            chain.doFilter(request, rendered);
+            String eTag = rendered.getHeader(HttpHeaders.ETAG);
+            // Only a full page, and only if no write happened while it was rendered
+            if (rendered.getStatus() != HttpServletResponse.SC_OK || rendered.getContentType() == null
+                    || eTag == null || !version.equals(userService.getUsersVersion())) {
+                rendered.copyBodyToResponse();
+                return;
+            }
+            byte[] body = rendered.getContentAsByteArray();
+            if (key.contentCoding().equals(GZIP)) {
+                body = gzip(body);
+                eTag = withContentCoding(eTag, GZIP);
+            }
+            CachedResponse fresh = new CachedResponse(version, rendered.getContentType(), eTag, key.contentCoding(), body);
+            responses.put(key, fresh);
+            // Written from the cache entry, compressed and tagged like every later copy of it
+            response.setHeader(HttpHeaders.ETAG, fresh.eTag());
+            if (!new ServletWebRequest(request, response).checkNotModified(fresh.eTag())) {
+                fresh.writeTo(response);
+            }
+        }
+
+        private static String withContentCoding(String eTag, String contentCoding) {
+            return eTag.substring(0, eTag.length() - 1) + "-" + contentCoding + "\"";
+        }
+
+        // A coding is accepted when listed without q=0, or when the client accepts any coding with *
+        private static boolean acceptsGzip(HttpServletRequest request) {
+            String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+            if (acceptEncoding == null) {
+                return false;
+            }
+            return Arrays.stream(acceptEncoding.split(",")).anyMatch(coding -> {
+                String[] parts = coding.trim().split(";");
+                String name = parts[0].trim();
+                boolean refused = parts.length > 1 && parts[1].trim().replace(" ", "").matches("q=0(\\.0*)?");
+                return (name.equalsIgnoreCase(GZIP) || name.equals("*")) && !refused;
+            });
+        }
+
+        private static byte[] gzip(byte[] body) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4 + 64);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(body);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return compressed.toByteArray();
+        }
+
+        private record Key(String url, String accept, String contentCoding) {
+        }
+
+        private record CachedResponse(String version, String contentType, String eTag, String contentCoding, byte[] body) {
+            void writeTo(HttpServletResponse response) throws IOException {
+                response.setStatus(HttpServletResponse.SC_OK);
+                response.setContentType(contentType);
+                response.setHeader(HttpHeaders.ETAG, eTag);
+                if (!contentCoding.equals(IDENTITY)) {
+                    response.setHeader(HttpHeaders.CONTENT_ENCODING, contentCoding);
+                }
+                response.setContentLength(body.length);
+                response.getOutputStream().write(body);
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.company.usersresourceapp.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Fails the startup in {@code execution.mode=virtual} when the application was built without
+ * {@link VirtualThreadsConfiguration}, by a build on Java 17, rather than silently serving requests
+ * on platform threads.
+ */
+@Configuration
+@ConditionalOnProperty(name = "execution.mode", havingValue = "virtual")
+@ConditionalOnMissingClass("com.company.usersresourceapp.config.VirtualThreadsConfiguration")
+public class VirtualThreadsUnavailableConfiguration {
+    public VirtualThreadsUnavailableConfiguration() {
+        throw new IllegalStateException("execution.mode=virtual requires a build on Java 21 or later, which "
+                + "compiles VirtualThreadsConfiguration, this build was made without it");
+    }
+}
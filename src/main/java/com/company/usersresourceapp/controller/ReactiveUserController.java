@@ -0,0 +1,241 @@
+package com.company.usersresourceapp.controller;
+
+import com.company.usersresourceapp.exception.ParametersValidationException;
+import com.company.usersresourceapp.model.BatchItemResult;
+import com.company.usersresourceapp.model.User;
+import com.company.usersresourceapp.service.ReactiveUserService;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Past;
+import jakarta.validation.constraints.Positive;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.SortDefault;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.MediaTypes;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.ServerWebInputException;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The core {@code /users} routes of {@link UserController} on WebFlux, for the {@code reactive} profile: creation,
+ * one by one and in batch, lookup, update, deletion, listing, birth date search and export.
+ * Listing and search render the same HAL pages, bounded by {@code maximum.users.page.size}, or stream
+ * the users one per line when {@code application/x-ndjson} is requested; the export is always streamed.
+ * Streamed users are read from the database only as fast as the client consumes them.
+ * Entity tags and preconditions work as in {@link UserController}.
+ * <p>
+ * Not served on this stack yet: sparse fieldsets ({@code ?fields=}), {@code GET /users/search/text}, bulk
+ * {@code PATCH} and {@code DELETE} on {@code /users}, {@code Prefer: respond-async} with
+ * {@code GET /users/pending/{ticket}}, and the CBOR and Smile encodings. Updates and deletions read the user before writing it, two statements where
+ * the servlet stack runs one.
+ */
+@RestController
+@RequestMapping("/users")
+@Validated
+@Profile("reactive")
+public class ReactiveUserController {
+    private final ReactiveUserService userService;
+
+    @Value("${default.users.page.size}")
+    private int defaultPageSize;
+
+    @Value("${maximum.users.page.size}")
+    private int maximumPageSize;
+
+    public ReactiveUserController(ReactiveUserService userService) {
+        this.userService = userService;
+    }
+
+    @PostMapping
+    public Mono<ResponseEntity<EntityModel<User>>> createUser(@Valid @RequestBody User user, ServerHttpRequest request) {
+        Link usersLink = usersLink(request);
+        return userService.createNewUser(user).map(created -> {
+            EntityModel<User> entityModel = UserModelAssembler.toModel(created, usersLink);
+            return ResponseEntity
+                    .created(entityModel.getRequiredLink(IanaLinkRelations.SELF).toUri())
+                    .eTag(UserETags.of(created))
+                    .body(entityModel);
+        });
+    }
+
+    @PostMapping(value = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Mono<List<BatchItemResult>> createUsers(@RequestBody Flux<User> users) {
+        return userService.createNewUsers(users)
+                .onErrorMap(ServerWebInputException.class,
+                        e -> new ParametersValidationException("Request body is not valid: " + e.getReason()))
+                .collectList();
+    }
+
+    @PutMapping("/{id}")
+    public Mono<ResponseEntity<EntityModel<User>>> updateUser(
+            @Valid @RequestBody User updatedUser, @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            ServerHttpRequest request
+    ) {
+        Link usersLink = usersLink(request);
+        return expectedVersion(ifMatch, id)
+                .flatMap(version -> userService.updateUser(updatedUser, id, version.orElse(null)))
+                .map(user -> toResponse(user, usersLink));
+    }
+
+    @PatchMapping("/{id}")
+    public Mono<ResponseEntity<EntityModel<User>>> updateUserPartially(
+            @RequestBody Map<Object, Object> fields, @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            ServerHttpRequest request
+    ) {
+        Link usersLink = usersLink(request);
+        return expectedVersion(ifMatch, id)
+                .flatMap(version -> userService.updateUserByFields(fields, id, version.orElse(null)))
+                .map(user -> toResponse(user, usersLink));
+    }
+
+    @GetMapping(produces = {MediaTypes.HAL_JSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public Mono<ResponseEntity<CollectionModel<EntityModel<User>>>> getAllUsers(
+            @RequestParam(value = "after", required = false) Long after,
+            @RequestParam(value = "limit", required = false) @Positive(
+                    message = "Parameter 'limit' must be greater than 0") Integer limit,
+            ServerWebExchange exchange
+    ) {
+        String eTag = UserETags.ofCollection(userService.getUsersVersion());
+        if (exchange.checkNotModified(eTag)) {
+            return Mono.just(ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build());
+        }
+        ServerHttpRequest request = exchange.getRequest();
+        int pageSize = pageSize(limit);
+        Link usersLink = usersLink(request);
+        // One more user than the page size tells whether there is a next page
+        return userService.findUsersAfter(after, pageSize + 1).collectList().map(users -> {
+            List<User> page = users.subList(0, Math.min(users.size(), pageSize));
+            CollectionModel<EntityModel<User>> collectionModel = CollectionModel.of(
+                    page.stream().map(user -> UserModelAssembler.toModel(user, usersLink)).toList(),
+                    Link.of(UriComponentsBuilder.fromHttpRequest(request).toUriString()).withSelfRel());
+            if (users.size() > pageSize) {
+                collectionModel.add(Link.of(UriComponentsBuilder.fromHttpRequest(request)
+                        .replaceQueryParam("after", page.get(pageSize - 1).getId())
+                        .toUriString()).withRel(IanaLinkRelations.NEXT));
+            }
+            return ResponseEntity.ok().eTag(eTag).body(collectionModel);
+        });
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<User> streamAllUsers(
+            @RequestParam(value = "after", required = false) Long after,
+            @RequestParam(value = "limit", required = false) @Positive(
+                    message = "Parameter 'limit' must be greater than 0") Integer limit
+    ) {
+        return userService.findUsersAfter(after, pageSize(limit));
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<User> exportUsers() {
+        return userService.exportUsers();
+    }
+
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<EntityModel<User>>> getUser(@PathVariable Long id, ServerHttpRequest request) {
+        Link usersLink = usersLink(request);
+        // A matching If-None-Match turns the response into 304 Not Modified before the body is written
+        return userService.findUserById(id).map(user -> toResponse(user, usersLink));
+    }
+
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<String>> deleteUser(@PathVariable Long id) {
+        return userService.deleteUserById(id)
+                .then(Mono.fromSupplier(() -> new ResponseEntity<>("User " + id + " deleted successfully", HttpStatus.ACCEPTED)));
+    }
+
+    @GetMapping(value = "/search", produces = {MediaTypes.HAL_JSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public Mono<ResponseEntity<CollectionModel<EntityModel<User>>>> searchUsersByBirthDateRange(
+            @RequestParam(value = "from") @DateTimeFormat(pattern = "yyyy-MM-dd") @Past(
+                    message = "Parameter 'from' must be less than 'to'") Date from,
+            @RequestParam(value = "to") @DateTimeFormat(pattern = "yyyy-MM-dd") @Past(
+                    message = "Parameter 'from' must be less than 'to'") Date to,
+            @SortDefault(sort = {"birthDate", "id"}) Pageable pageable,
+            ServerWebExchange exchange
+    ) {
+        checkRange(from, to);
+        String eTag = UserETags.ofCollection(userService.getUsersVersion());
+        if (exchange.checkNotModified(eTag)) {
+            return Mono.just(ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build());
+        }
+        ServerHttpRequest request = exchange.getRequest();
+        int pageSize = pageable.getPageSize();
+        Link usersLink = usersLink(request);
+        return userService.searchByDate(from, to, pageable.getSort(), pageable.getOffset(), pageSize + 1)
+                .collectList().map(users -> {
+                    CollectionModel<EntityModel<User>> collectionModel = CollectionModel.of(
+                            users.stream().limit(pageSize).map(user -> UserModelAssembler.toModel(user, usersLink)).toList(),
+                            Link.of(UriComponentsBuilder.fromHttpRequest(request).toUriString()).withSelfRel());
+                    if (users.size() > pageSize) {
+                        collectionModel.add(Link.of(UriComponentsBuilder.fromHttpRequest(request)
+                                .replaceQueryParam("page", pageable.getPageNumber() + 1)
+                                .toUriString()).withRel(IanaLinkRelations.NEXT));
+                    }
+                    return ResponseEntity.ok().eTag(eTag).body(collectionModel);
+                });
+    }
+
+    @GetMapping(value = "/search", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<User> streamUsersByBirthDateRange(
+            @RequestParam(value = "from") @DateTimeFormat(pattern = "yyyy-MM-dd") @Past(
+                    message = "Parameter 'from' must be less than 'to'") Date from,
+            @RequestParam(value = "to") @DateTimeFormat(pattern = "yyyy-MM-dd") @Past(
+                    message = "Parameter 'from' must be less than 'to'") Date to,
+            @SortDefault(sort = {"birthDate", "id"}) Pageable pageable
+    ) {
+        checkRange(from, to);
+        return userService.searchByDate(from, to, pageable.getSort(), pageable.getOffset(), pageable.getPageSize());
+    }
+
+    private static ResponseEntity<EntityModel<User>> toResponse(User user, Link usersLink) {
+        return ResponseEntity.ok().eTag(UserETags.of(user)).body(UserModelAssembler.toModel(user, usersLink));
+    }
+
+    // With several tags in If-Match, the user is expected at its current version if the client accepts it
+    private Mono<Optional<Long>> expectedVersion(String ifMatch, Long id) {
+        List<Long> versions = UserETags.expectedVersions(ifMatch, id);
+        if (versions.size() <= 1) {
+            return Mono.just(versions.stream().findFirst());
+        }
+        return userService.findUserById(id)
+                .map(user -> Optional.of(UserETags.matchingVersion(versions, user.getVersion(), id)));
+    }
+
+    private int pageSize(Integer limit) {
+        return Math.min(limit == null ? defaultPageSize : limit, maximumPageSize);
+    }
+
+    private static void checkRange(Date from, Date to) {
+        if (!from.before(to)) {
+            throw new ParametersValidationException("Parameter 'from' must be less than 'to'");
+        }
+    }
+
+    private static Link usersLink(ServerHttpRequest request) {
+        return Link.of(UriComponentsBuilder.fromHttpRequest(request)
+                .replacePath(request.getPath().contextPath().value() + "/users")
+                .replaceQuery(null)
+                .toUriString(), UserModelAssembler.USERS);
+    }
+}
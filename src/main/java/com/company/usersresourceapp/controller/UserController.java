@@ -1,23 +1,52 @@
 package com.company.usersresourceapp.controller;
 
 import com.company.usersresourceapp.exception.ParametersValidationException;
+import com.company.usersresourceapp.exception.PendingUserNotFoundException;
+import com.company.usersresourceapp.model.BatchItemResult;
+import com.company.usersresourceapp.model.BulkChangeResult;
+import com.company.usersresourceapp.model.PendingUserStatus;
 import com.company.usersresourceapp.model.User;
+import com.company.usersresourceapp.model.UserFields;
 import com.company.usersresourceapp.service.UserService;
+import com.company.usersresourceapp.service.UserWriteBehindLog;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Past;
+import jakarta.validation.constraints.Positive;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.web.SortDefault;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
@@ -26,46 +55,187 @@ import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 @RequestMapping("/users")
 @Validated
 @Slf4j
+@Profile("!reactive")
 public class UserController {
+    private static final String PREFER = "Prefer";
+
+    private static final String PREFERENCE_APPLIED = "Preference-Applied";
+
+    private static final String RESPOND_ASYNC = "respond-async";
+
     private final UserService userService;
 
     private final UserModelAssembler userModelAssembler;
 
-    public UserController(UserService userService, UserModelAssembler userModelAssembler) {
+    private final ObjectMapper objectMapper;
+
+    private final UserWriteBehindLog userWriteBehindLog;
+
+    @Value("${default.users.page.size}")
+    private int defaultPageSize;
+
+    @Value("${maximum.users.page.size}")
+    private int maximumPageSize;
+
+    public UserController(UserService userService, UserModelAssembler userModelAssembler, ObjectMapper objectMapper,
+                          UserWriteBehindLog userWriteBehindLog) {
         this.userService = userService;
         this.userModelAssembler = userModelAssembler;
+        this.objectMapper = objectMapper;
+        this.userWriteBehindLog = userWriteBehindLog;
     }
 
+    // With Prefer: respond-async, when the write-behind log is enabled, answers 202 Accepted as soon as
+    // the user is validated and logged, with the location of its status, /users/pending/{ticket}
     @PostMapping
-    public ResponseEntity<EntityModel<User>> createUser(@Valid @RequestBody User user) {
-        EntityModel<User> entityModel = userModelAssembler.toModel(userService.createNewUser(user));
+    public ResponseEntity<?> createUser(@Valid @RequestBody User user,
+                                        @RequestHeader(value = PREFER, required = false) String prefer,
+                                        WebRequest webRequest) {
+        if (userWriteBehindLog.isEnabled() && prefer != null && prefer.contains(RESPOND_ASYNC)) {
+            PendingUserStatus status = userWriteBehindLog.append(user);
+            return ResponseEntity
+                    .accepted()
+                    .location(linkTo(methodOn(UserController.class).getPendingUser(status.getTicket())).toUri())
+                    .header(PREFERENCE_APPLIED, RESPOND_ASYNC)
+                    .body(status);
+        }
+        User createdUser = userService.createNewUser(user);
+        EntityModel<User> entityModel = userModelAssembler.toModel(createdUser);
         return ResponseEntity
                 .created(entityModel.getRequiredLink(IanaLinkRelations.SELF).toUri())
+                .eTag(UserETags.of(createdUser, webRequest))
                 .body(entityModel);
     }
 
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<BatchItemResult>> createUsers(@RequestBody List<User> users) {
+        return ResponseEntity.ok(userService.createNewUsers(users));
+    }
+
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<List<BatchItemResult>> createUsersFromNdjson(InputStream body) throws IOException {
+        List<User> users;
+        try (MappingIterator<User> iterator = objectMapper.readerFor(User.class).readValues(body)) {
+            users = iterator.readAll();
+        } catch (JsonProcessingException e) {
+            throw new ParametersValidationException("Request body is not valid NDJSON: " + e.getOriginalMessage());
+        }
+        return ResponseEntity.ok(userService.createNewUsers(users));
+    }
+
+    @GetMapping("/pending/{ticket}")
+    public ResponseEntity<PendingUserStatus> getPendingUser(@PathVariable long ticket) {
+        return ResponseEntity.ok(userWriteBehindLog.status(ticket).orElseThrow(() -> new PendingUserNotFoundException(ticket)));
+    }
+
+    // An If-Match that doesn't match the current version of the user answers 412 Precondition Failed,
+    // the same goes for PATCH
     @PutMapping("/{id}")
-    public ResponseEntity<EntityModel<User>> updateUser(@Valid @RequestBody User updatedUser, @PathVariable Long id) {
-        return ResponseEntity.ok(userModelAssembler.toModel(userService.updateUser(updatedUser, id)));
+    public ResponseEntity<EntityModel<User>> updateUser(
+            @Valid @RequestBody User updatedUser, @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            WebRequest webRequest
+    ) {
+        User user = userService.updateUser(updatedUser, id, expectedVersion(ifMatch, id));
+        return ResponseEntity.ok().eTag(UserETags.of(user, webRequest)).body(userModelAssembler.toModel(user));
     }
 
     @PatchMapping("/{id}")
-    public ResponseEntity<EntityModel<User>> updateUserPartially(@RequestBody Map<Object, Object> fields, @PathVariable Long id) {
-        return ResponseEntity.ok(userModelAssembler.toModel(userService.updateUserByFields(fields, id)));
+    public ResponseEntity<EntityModel<User>> updateUserPartially(
+            @RequestBody Map<Object, Object> fields, @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            WebRequest webRequest
+    ) {
+        User user = userService.updateUserByFields(fields, id, expectedVersion(ifMatch, id));
+        return ResponseEntity.ok().eTag(UserETags.of(user, webRequest)).body(userModelAssembler.toModel(user));
+    }
+
+    // Changes every user selected either by ?ids=1,2,3 or by a birth date range, ?from=...&to=... as in a search,
+    // and answers the number of users changed
+    @PatchMapping
+    public ResponseEntity<BulkChangeResult> updateUsers(
+            @RequestBody Map<Object, Object> fields,
+            @RequestParam(value = "ids", required = false) List<Long> ids,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") Date from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") Date to
+    ) {
+        long updated = selectsByIds(ids, from, to)
+                ? userService.updateUsersById(fields, ids)
+                : userService.updateUsersByBirthDateBetween(fields, from, to);
+        return ResponseEntity.ok(new BulkChangeResult(updated));
     }
 
+    // Selects the users to delete like the PATCH on the collection
+    @DeleteMapping
+    public ResponseEntity<BulkChangeResult> deleteUsers(
+            @RequestParam(value = "ids", required = false) List<Long> ids,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") Date from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") Date to
+    ) {
+        long deleted = selectsByIds(ids, from, to)
+                ? userService.deleteUsersById(ids)
+                : userService.deleteUsersByBirthDateBetween(from, to);
+        return ResponseEntity.ok(new BulkChangeResult(deleted));
+    }
+
+    // An optional sparse fieldset, ?fields=email,lastName, only reads and renders those fields of the users,
+    // their id and their links
     @GetMapping
-    public ResponseEntity<CollectionModel<EntityModel<User>>> getAllUsers() {
-        List<EntityModel<User>> users = userService.findAllUsers().stream()
-                .map(userModelAssembler::toModel)
-                .toList();
-        return new ResponseEntity<>(CollectionModel.of(users,
-                linkTo(methodOn(UserController.class).getAllUsers()).withSelfRel()), HttpStatus.OK);
+    public ResponseEntity<CollectionModel<EntityModel<?>>> getAllUsers(
+            @RequestParam(value = "after", required = false) Long after,
+            @RequestParam(value = "limit", required = false) @Positive(
+                    message = "Parameter 'limit' must be greater than 0") Integer limit,
+            @RequestParam(value = "fields", required = false) Set<String> fields,
+            WebRequest webRequest
+    ) {
+        String eTag = UserETags.ofCollection(userService.getUsersVersion(), webRequest);
+        if (webRequest.checkNotModified(eTag)) {
+            return null;
+        }
+        int pageSize = pageSize(limit);
+        Slice<EntityModel<?>> page = fields == null
+                ? userService.findUsersAfter(after, pageSize).map(userModelAssembler::toModel)
+                : userService.findUsersAfter(after, pageSize, fields).map(userModelAssembler::toModel);
+        CollectionModel<EntityModel<?>> collectionModel = CollectionModel.of(page.getContent(),
+                linkTo(methodOn(UserController.class).getAllUsers(after, limit, fields, null)).withSelfRel().expand());
+        if (page.hasNext()) {
+            Long lastId = idOf(page.getContent().get(page.getNumberOfElements() - 1).getContent());
+            collectionModel.add(linkTo(methodOn(UserController.class).getAllUsers(lastId, limit, fields, null))
+                    .withRel(IanaLinkRelations.NEXT).expand());
+        }
+        return ResponseEntity.ok().eTag(eTag).body(collectionModel);
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportUsers() {
+        ObjectWriter userWriter = objectMapper.writerFor(User.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                // One document per line: no separator between root values, a line feed after each of them
+                generator.setRootValueSeparator(null);
+                userService.exportUsers(user -> {
+                    try {
+                        userWriter.writeValue(generator, user);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
 
+    // Answers 304 Not Modified to a matching If-None-Match before building any representation
     @GetMapping("/{id}")
-    public ResponseEntity<EntityModel<User>> getUser(@PathVariable Long id) {
-        return ResponseEntity.ok(userModelAssembler.toModel(userService.findUserById(id)));
+    public ResponseEntity<EntityModel<User>> getUser(@PathVariable Long id, WebRequest webRequest) {
+        User user = userService.findUserById(id);
+        String eTag = UserETags.of(user, webRequest);
+        if (webRequest.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(eTag).body(userModelAssembler.toModel(user));
     }
 
     @DeleteMapping("/{id}")
@@ -74,20 +244,90 @@ public class UserController {
         return new ResponseEntity<>("User " + id + " deleted successfully", HttpStatus.ACCEPTED);
     }
 
+    // Takes the same sparse fieldset as the listing
     @GetMapping("/search")
-    public ResponseEntity<CollectionModel<EntityModel<User>>> searchUsersByBirthDateRange(
+    public ResponseEntity<CollectionModel<EntityModel<?>>> searchUsersByBirthDateRange(
             @RequestParam(value = "from") @DateTimeFormat(pattern = "yyyy-MM-dd") @Past(
                     message = "Parameter 'from' must be less than 'to'") Date from,
             @RequestParam(value = "to") @DateTimeFormat(pattern = "yyyy-MM-dd") @Past(
-                    message = "Parameter 'from' must be less than 'to'") Date to
+                    message = "Parameter 'from' must be less than 'to'") Date to,
+            @SortDefault(sort = {"birthDate", "id"}) Pageable pageable,
+            @RequestParam(value = "fields", required = false) Set<String> fields,
+            WebRequest webRequest
     ) {
         if (!from.before(to)) {
             throw new ParametersValidationException("Parameter 'from' must be less than 'to'");
         }
-        List<EntityModel<User>> users = userService.searchByDate(from, to).stream()
+        String eTag = UserETags.ofCollection(userService.getUsersVersion(), webRequest);
+        if (webRequest.checkNotModified(eTag)) {
+            return null;
+        }
+        Slice<EntityModel<?>> page = fields == null
+                ? userService.searchByDate(from, to, pageable).map(userModelAssembler::toModel)
+                : userService.searchByDate(from, to, pageable, fields).map(userModelAssembler::toModel);
+        CollectionModel<EntityModel<?>> collectionModel = CollectionModel.of(page.getContent(),
+                Link.of(ServletUriComponentsBuilder.fromCurrentRequest().toUriString()).withSelfRel());
+        if (page.hasNext()) {
+            collectionModel.add(Link.of(ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("page", page.getNumber() + 1)
+                    .toUriString()).withRel(IanaLinkRelations.NEXT));
+        }
+        return ResponseEntity.ok().eTag(eTag).body(collectionModel);
+    }
+
+    @GetMapping("/search/text")
+    public ResponseEntity<CollectionModel<EntityModel<User>>> searchUsersByText(
+            @RequestParam(value = "q") @NotBlank(message = "Parameter 'q' can't be empty") String query,
+            @RequestParam(value = "limit", required = false) @Positive(
+                    message = "Parameter 'limit' must be greater than 0") Integer limit,
+            WebRequest webRequest
+    ) {
+        String eTag = UserETags.ofCollection(userService.getUsersVersion(), webRequest);
+        if (webRequest.checkNotModified(eTag)) {
+            return null;
+        }
+        List<EntityModel<User>> users = userService.searchByText(query, pageSize(limit)).stream()
                 .map(userModelAssembler::toModel)
                 .toList();
-        return new ResponseEntity<>(CollectionModel.of(users,
-                linkTo(methodOn(UserController.class).getAllUsers()).withSelfRel()), HttpStatus.OK);
+        CollectionModel<EntityModel<User>> collectionModel = CollectionModel.of(users,
+                Link.of(ServletUriComponentsBuilder.fromCurrentRequest().toUriString()).withSelfRel());
+        return ResponseEntity.ok().eTag(eTag).body(collectionModel);
+    }
+
+    // A bulk change selects users either by ids or by a birth date range, never the whole collection
+    private static boolean selectsByIds(List<Long> ids, Date from, Date to) {
+        if (ids != null) {
+            if (from != null || to != null) {
+                throw new ParametersValidationException("Parameter 'ids' can't be combined with 'from' and 'to'");
+            }
+            if (ids.isEmpty()) {
+                throw new ParametersValidationException("Parameter 'ids' can't be empty");
+            }
+            return true;
+        }
+        if (from == null || to == null) {
+            throw new ParametersValidationException("Parameters 'ids', or 'from' and 'to', are required");
+        }
+        if (!from.before(to)) {
+            throw new ParametersValidationException("Parameter 'from' must be less than 'to'");
+        }
+        return false;
+    }
+
+    // With several tags in If-Match, the user is expected at its current version if the client accepts it
+    private Long expectedVersion(String ifMatch, Long id) {
+        List<Long> versions = UserETags.expectedVersions(ifMatch, id);
+        if (versions.size() <= 1) {
+            return versions.isEmpty() ? null : versions.get(0);
+        }
+        return UserETags.matchingVersion(versions, userService.findUserVersion(id), id);
+    }
+
+    private int pageSize(Integer limit) {
+        return Math.min(limit == null ? defaultPageSize : limit, maximumPageSize);
+    }
+
+    private static Long idOf(Object user) {
+        return user instanceof User wholeUser ? wholeUser.getId() : ((UserFields) user).getId();
     }
 }
@@ -0,0 +1,131 @@
+package com.company.usersresourceapp.controller;
+
+import com.company.usersresourceapp.exception.PreconditionFailedException;
+import com.company.usersresourceapp.model.User;
+
+import org.springframework.hateoas.MediaTypes;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Strong entity tags of the users resources: a user is tagged with its version,
+ * a listing or a search with the version of the whole users collection.
+ * A strong tag changes with the bytes of the representation, so the binary encodings
+ * are tagged apart from JSON, with the encoding after the version: {@code "3-cbor"}.
+ */
+final class UserETags {
+    private static final MediaType SMILE = MediaType.valueOf("application/x-jackson-smile");
+
+    private static final String CBOR_ENCODING = "-cbor";
+
+    private static final String SMILE_ENCODING = "-smile";
+
+    private UserETags() {
+    }
+
+    static String of(User user) {
+        return "\"" + user.getVersion() + "\"";
+    }
+
+    /**
+     * @param request request the user is sent in response to, which negotiates its encoding
+     */
+    static String of(User user, WebRequest request) {
+        return "\"" + user.getVersion() + encoding(request) + "\"";
+    }
+
+    static String ofCollection(String usersVersion) {
+        return "\"" + usersVersion + "\"";
+    }
+
+    static String ofCollection(String usersVersion, WebRequest request) {
+        return "\"" + usersVersion + encoding(request) + "\"";
+    }
+
+    // Negotiated like Spring MVC does: the first acceptable type by quality, then specificity, decides, and
+    // CBOR and Smile are only sent when asked for by name
+    private static String encoding(WebRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        if (accept == null || accept.isBlank()) {
+            return "";
+        }
+        List<MediaType> acceptable;
+        try {
+            acceptable = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return "";
+        }
+        MimeTypeUtils.sortBySpecificity(acceptable);
+        for (MediaType type : acceptable) {
+            if (type.equalsTypeAndSubtype(MediaType.APPLICATION_CBOR)) {
+                return CBOR_ENCODING;
+            }
+            if (type.equalsTypeAndSubtype(SMILE)) {
+                return SMILE_ENCODING;
+            }
+            if (type.isCompatibleWith(MediaTypes.HAL_JSON) || type.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+                return "";
+            }
+        }
+        return "";
+    }
+
+    /**
+     * Reads the versions of a user that the client accepts from an {@code If-Match} header, a list of entity tags.
+     * @param ifMatch value of the header, may be null
+     * @param id id of the user being modified
+     * @return accepted versions, empty if there is no condition on the version
+     * @throws PreconditionFailedException if none of the tags can match a version of the user
+     */
+    static List<Long> expectedVersions(String ifMatch, Long id) {
+        if (ifMatch == null || ifMatch.isBlank()) {
+            return List.of();
+        }
+        List<Long> versions = new ArrayList<>();
+        for (String listed : ifMatch.split(",")) {
+            String tag = listed.trim();
+            if (tag.equals("*")) {
+                return List.of();
+            }
+            // Weak tags never match with the strong comparison If-Match requires
+            if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+                String version = tag.substring(1, tag.length() - 1);
+                for (String encoding : List.of(CBOR_ENCODING, SMILE_ENCODING)) {
+                    if (version.endsWith(encoding)) {
+                        version = version.substring(0, version.length() - encoding.length());
+                    }
+                }
+                try {
+                    versions.add(Long.valueOf(version));
+                } catch (NumberFormatException ignored) {
+                    // Not a tag of ours
+                }
+            }
+        }
+        if (versions.isEmpty()) {
+            throw new PreconditionFailedException(id);
+        }
+        return versions;
+    }
+
+    /**
+     * Picks the version a user is expected at among the ones the client accepts.
+     * @param versions versions read from {@code If-Match}, several of them
+     * @param currentVersion version the user is at
+     * @param id id of the user being modified
+     * @return current version
+     * @throws PreconditionFailedException if the client doesn't accept the current version
+     */
+    static Long matchingVersion(List<Long> versions, Long currentVersion, Long id) {
+        if (!versions.contains(currentVersion)) {
+            throw new PreconditionFailedException(id);
+        }
+        return currentVersion;
+    }
+}
@@ -1,19 +1,66 @@
 package com.company.usersresourceapp.controller;
 
 import com.company.usersresourceapp.model.User;
+import com.company.usersresourceapp.model.UserFields;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.LinkRelation;
 import org.springframework.hateoas.server.RepresentationModelAssembler;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
-import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 
+/**
+ * Builds the {@link User} representation with its {@code self} and {@code users} links.
+ * The base URI of the users resource is resolved once per request and every self link is derived from it,
+ * which gives the same links as {@code linkTo(methodOn(UserController.class).getUser(id))}
+ * without recording a proxy invocation and resolving the request URI for every user.
+ */
 @Component
+@Profile("!reactive")
 public class UserModelAssembler implements RepresentationModelAssembler<User, EntityModel<User>> {
+    static final LinkRelation USERS = LinkRelation.of("users");
+
+    private static final String USERS_LINK_ATTRIBUTE = UserModelAssembler.class.getName() + ".USERS_LINK";
+
     @Override
     public EntityModel<User> toModel(User user) {
+        return toModel(user, usersLink());
+    }
+
+    /**
+     * Builds the representation of the selected fields of a user, with the same links as the whole user.
+     */
+    public EntityModel<UserFields> toModel(UserFields user) {
+        Link usersLink = usersLink();
         return EntityModel.of(user,
-                linkTo(methodOn(UserController.class).getUser(user.getId())).withSelfRel(),
-                linkTo(methodOn(UserController.class).getAllUsers()).withRel("users"));
+                Link.of(usersLink.getHref() + "/" + user.getId(), IanaLinkRelations.SELF),
+                usersLink);
+    }
+
+    /**
+     * Builds the representation of a user from an already resolved {@code users} link.
+     */
+    static EntityModel<User> toModel(User user, Link usersLink) {
+        return EntityModel.of(user,
+                Link.of(usersLink.getHref() + "/" + user.getId(), IanaLinkRelations.SELF),
+                usersLink);
+    }
+
+    private Link usersLink() {
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (requestAttributes == null) {
+            return linkTo(UserController.class).withRel(USERS);
+        }
+        Link usersLink = (Link) requestAttributes.getAttribute(USERS_LINK_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (usersLink == null) {
+            usersLink = linkTo(UserController.class).withRel(USERS);
+            requestAttributes.setAttribute(USERS_LINK_ATTRIBUTE, usersLink, RequestAttributes.SCOPE_REQUEST);
+        }
+        return usersLink;
     }
 }
@@ -0,0 +1,52 @@
+package com.company.usersresourceapp.exception;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Counts every {@link ErrorResponse} written by {@link GlobalExceptionHandler} as {@code users.errors},
+ * tagged with its status, its message, which is one per kind of error, and the route of the request.
+ */
+@RestControllerAdvice
+@Profile("!reactive")
+public class ErrorResponseMetrics implements ResponseBodyAdvice<Object> {
+    private final MeterRegistry meterRegistry;
+
+    public ErrorResponseMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return GlobalExceptionHandler.class.isAssignableFrom(returnType.getContainingClass());
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (body instanceof ErrorResponse errorResponse) {
+            Object route = request instanceof ServletServerHttpRequest servletRequest
+                    ? servletRequest.getServletRequest().getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE)
+                    : null;
+            Counter.builder("users.errors")
+                    .description("Error responses by status and kind of error")
+                    .tag("status", String.valueOf(errorResponse.getStatus()))
+                    .tag("error", errorResponse.getMessage())
+                    .tag("uri", route == null ? "UNKNOWN" : route.toString())
+                    .register(meterRegistry)
+                    .increment();
+        }
+        return body;
+    }
+}
@@ -2,6 +2,12 @@ package com.company.usersresourceapp.exception;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.ConstraintViolationException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mapping.PropertyReferenceException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
@@ -9,6 +15,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.MethodNotAllowedException;
@@ -18,6 +25,8 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 @RestControllerAdvice
+@Slf4j
+@Profile("!reactive")
 public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
     @Override
     public ResponseEntity<Object> handleMethodArgumentNotValid(MethodArgumentNotValidException ex, HttpHeaders headers,
@@ -33,14 +42,16 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
         return new ResponseEntity<>(errorResponse, new HttpHeaders(), HttpStatus.BAD_REQUEST);
     }
 
-    @ExceptionHandler(UserNotFoundException.class)
-    public ErrorResponse handleUserNotFound(UserNotFoundException ex, HttpServletRequest httpRequest) {
+    @ExceptionHandler({UserNotFoundException.class, PendingUserNotFoundException.class})
+    @ResponseStatus(HttpStatus.NOT_FOUND)
+    public ErrorResponse handleUserNotFound(RuntimeException ex, HttpServletRequest httpRequest) {
         String message = "Resource not found";
         return new ErrorResponse(HttpStatus.NOT_FOUND,
                 message, ex.getLocalizedMessage(), httpRequest.getRequestURI());
     }
 
-    @ExceptionHandler(ParametersValidationException.class)
+    @ExceptionHandler({ParametersValidationException.class, PropertyReferenceException.class})
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ErrorResponse handleTransactionalError(Exception ex, HttpServletRequest httpRequest) {
         String message = "Bad user request";
         return new ErrorResponse(HttpStatus.BAD_REQUEST,
@@ -48,6 +59,7 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
     }
 
     @ExceptionHandler(MethodNotAllowedException.class)
+    @ResponseStatus(HttpStatus.METHOD_NOT_ALLOWED)
     public ErrorResponse handleMethodNotAllowed(Exception ex, HttpServletRequest httpRequest) {
         String message = "Method not allowed";
         return new ErrorResponse(HttpStatus.METHOD_NOT_ALLOWED,
@@ -55,13 +67,35 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
     }
 
     @ExceptionHandler(ConstraintViolationException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ErrorResponse handleConstraintViolation(Exception ex, HttpServletRequest httpRequest) {
         String message = "Constraint violation";
         return new ErrorResponse(HttpStatus.BAD_REQUEST,
                 message, ex.getLocalizedMessage(), httpRequest.getRequestURI());
     }
 
+    @ExceptionHandler(PreconditionFailedException.class)
+    @ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+    public ErrorResponse handlePreconditionFailed(PreconditionFailedException ex, HttpServletRequest httpRequest) {
+        String message = "Precondition failed";
+        return new ErrorResponse(HttpStatus.PRECONDITION_FAILED,
+                message, ex.getLocalizedMessage(), httpRequest.getRequestURI());
+    }
+
+    @ExceptionHandler({DataIntegrityViolationException.class, OptimisticLockingFailureException.class})
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ErrorResponse handleDataIntegrityViolation(DataAccessException ex, HttpServletRequest httpRequest) {
+        String message = "Conflict with an existing resource";
+        // The database message quotes the statement, it is only logged
+        log.warn("Conflict on {}: {}", httpRequest.getRequestURI(), ex.getMostSpecificCause().getLocalizedMessage());
+        String detail = ex instanceof OptimisticLockingFailureException
+                ? "The user was modified by another request"
+                : "A user with this email already exists";
+        return new ErrorResponse(HttpStatus.CONFLICT, message, detail, httpRequest.getRequestURI());
+    }
+
     @ExceptionHandler(Exception.class)
+    @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     public ErrorResponse handleInternalError(Exception ex, HttpServletRequest httpRequest) {
         String message = "Internal server error";
         return new ErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR,
@@ -0,0 +1,11 @@
+package com.company.usersresourceapp.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.NOT_FOUND)
+public class PendingUserNotFoundException extends RuntimeException {
+    public PendingUserNotFoundException(long ticket) {
+        super("Could not find pending user creation " + ticket);
+    }
+}
@@ -0,0 +1,7 @@
+package com.company.usersresourceapp.exception;
+
+public class PreconditionFailedException extends RuntimeException {
+    public PreconditionFailedException(Long id) {
+        super("User with id " + id + " has been modified since it was read");
+    }
+}
@@ -0,0 +1,97 @@
+package com.company.usersresourceapp.exception;
+
+import jakarta.validation.ConstraintViolationException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mapping.PropertyReferenceException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.reactive.result.method.annotation.ResponseEntityExceptionHandler;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Same error mapping as {@link GlobalExceptionHandler}, for the WebFlux controllers of the {@code reactive} profile.
+ */
+@RestControllerAdvice
+@Slf4j
+@Profile("reactive")
+public class ReactiveGlobalExceptionHandler extends ResponseEntityExceptionHandler {
+    @Override
+    protected Mono<ResponseEntity<Object>> handleWebExchangeBindException(WebExchangeBindException ex, HttpHeaders headers,
+                                                                        HttpStatusCode status, ServerWebExchange exchange) {
+        String message = "Arguments is not valid";
+        List<String> errors = ex.getBindingResult().getFieldErrors()
+                .stream().map(FieldError::getDefaultMessage).toList();
+        ErrorResponse errorResponse = new ErrorResponse(
+                HttpStatus.BAD_REQUEST, message, ex.getBody().getDetail(), exchange.getRequest().getPath().value()
+        );
+        errorResponse.setInvalidParams(errors);
+        return Mono.just(new ResponseEntity<>(errorResponse, new HttpHeaders(), HttpStatus.BAD_REQUEST));
+    }
+
+    @ExceptionHandler(UserNotFoundException.class)
+    @ResponseStatus(HttpStatus.NOT_FOUND)
+    public ErrorResponse handleUserNotFound(UserNotFoundException ex, ServerHttpRequest request) {
+        String message = "Resource not found";
+        return new ErrorResponse(HttpStatus.NOT_FOUND,
+                message, ex.getLocalizedMessage(), request.getPath().value());
+    }
+
+    @ExceptionHandler({ParametersValidationException.class, PropertyReferenceException.class})
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ErrorResponse handleTransactionalError(Exception ex, ServerHttpRequest request) {
+        String message = "Bad user request";
+        return new ErrorResponse(HttpStatus.BAD_REQUEST,
+                message, ex.getLocalizedMessage(), request.getPath().value());
+    }
+
+    @ExceptionHandler(ConstraintViolationException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ErrorResponse handleConstraintViolation(Exception ex, ServerHttpRequest request) {
+        String message = "Constraint violation";
+        return new ErrorResponse(HttpStatus.BAD_REQUEST,
+                message, ex.getLocalizedMessage(), request.getPath().value());
+    }
+
+    @ExceptionHandler(PreconditionFailedException.class)
+    @ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+    public ErrorResponse handlePreconditionFailed(PreconditionFailedException ex, ServerHttpRequest request) {
+        String message = "Precondition failed";
+        return new ErrorResponse(HttpStatus.PRECONDITION_FAILED,
+                message, ex.getLocalizedMessage(), request.getPath().value());
+    }
+
+    @ExceptionHandler({DataIntegrityViolationException.class, OptimisticLockingFailureException.class})
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ErrorResponse handleDataIntegrityViolation(DataAccessException ex, ServerHttpRequest request) {
+        String message = "Conflict with an existing resource";
+        // The database message quotes the statement, it is only logged
+        log.warn("Conflict on {}: {}", request.getPath().value(), ex.getMostSpecificCause().getLocalizedMessage());
+        String detail = ex instanceof OptimisticLockingFailureException
+                ? "The user was modified by another request"
+                : "A user with this email already exists";
+        return new ErrorResponse(HttpStatus.CONFLICT, message, detail, request.getPath().value());
+    }
+
+    @ExceptionHandler(Exception.class)
+    @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
+    public ErrorResponse handleInternalError(Exception ex, ServerHttpRequest request) {
+        String message = "Internal server error";
+        return new ErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR,
+                message, ex.getLocalizedMessage(), request.getPath().value());
+    }
+}
@@ -0,0 +1,43 @@
+package com.company.usersresourceapp.model;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+
+import java.util.List;
+
+/**
+ * Outcome of a single element of a batch request, reported at the same position as in the request.
+ */
+@Getter
+public class BatchItemResult {
+    private final int index;
+    private final HttpStatus title;
+    private final int status;
+
+    private final Long id;
+
+    private final List<String> errors;
+
+    private BatchItemResult(int index, HttpStatus title, Long id, List<String> errors) {
+        this.index = index;
+        this.title = title;
+        this.status = title.value();
+        this.id = id;
+        this.errors = errors;
+    }
+
+    public static BatchItemResult created(int index, Long id) {
+        return new BatchItemResult(index, HttpStatus.CREATED, id, List.of());
+    }
+
+    public static BatchItemResult rejected(int index, List<String> errors) {
+        return new BatchItemResult(index, HttpStatus.BAD_REQUEST, null, errors);
+    }
+
+    /**
+     * A valid user that the database refused, which the unique email is the only reason for.
+     */
+    public static BatchItemResult failed(int index) {
+        return new BatchItemResult(index, HttpStatus.CONFLICT, null, List.of("A user with this email already exists"));
+    }
+}
@@ -0,0 +1,15 @@
+package com.company.usersresourceapp.model;
+
+import lombok.Getter;
+
+/**
+ * Outcome of a bulk update or delete: the number of users it changed.
+ */
+@Getter
+public class BulkChangeResult {
+    private final long affected;
+
+    public BulkChangeResult(long affected) {
+        this.affected = affected;
+    }
+}
@@ -0,0 +1,37 @@
+package com.company.usersresourceapp.model;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+
+import java.util.List;
+
+/**
+ * Status of a user creation accepted for later insertion: {@code 202 Accepted} while it waits in the write-behind
+ * log, then the outcome of the insertion, like the {@link BatchItemResult} of a batch.
+ */
+@Getter
+public class PendingUserStatus {
+    private final long ticket;
+    private final HttpStatus title;
+    private final int status;
+
+    private final Long id;
+
+    private final List<String> errors;
+
+    private PendingUserStatus(long ticket, HttpStatus title, Long id, List<String> errors) {
+        this.ticket = ticket;
+        this.title = title;
+        this.status = title.value();
+        this.id = id;
+        this.errors = errors;
+    }
+
+    public static PendingUserStatus accepted(long ticket) {
+        return new PendingUserStatus(ticket, HttpStatus.ACCEPTED, null, List.of());
+    }
+
+    public static PendingUserStatus of(long ticket, BatchItemResult result) {
+        return new PendingUserStatus(ticket, result.getTitle(), result.getId(), result.getErrors());
+    }
+}
@@ -1,10 +1,15 @@
 package com.company.usersresourceapp.model;
 
 import com.company.usersresourceapp.util.AgeConstraint;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.*;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -16,10 +21,16 @@ import java.util.Date;
 @Getter
 @Setter
 @Entity
+@Table(name = "user", indexes = {
+        @Index(name = "idx_user_birth_date", columnList = "birthDate, id"),
+        @Index(name = "ux_user_email", columnList = "email", unique = true)
+})
 @AllArgsConstructor
 public class User {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @org.springframework.data.annotation.Id // identifier for R2DBC, which doesn't read the JPA mapping
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_seq")
+    @SequenceGenerator(name = "user_seq", sequenceName = "user_seq", allocationSize = 50) // pooled, allows insert batching
     private Long id;
 
     @NotBlank(message = "Email can't be empty")
@@ -44,6 +55,10 @@ public class User {
     private String address;
     private String phoneNumber;
 
+    @Version
+    @JsonIgnore // exposed as the ETag of the user
+    private Long version;
+
     public User() {
 
     }
@@ -0,0 +1,16 @@
+package com.company.usersresourceapp.model;
+
+import org.springframework.hateoas.server.core.Relation;
+
+import java.util.LinkedHashMap;
+
+/**
+ * Some of the fields of a {@link User}, by name, in the order they were requested.
+ * Rendered in collections under the same relation as full users.
+ */
+@Relation(itemRelation = "user", collectionRelation = "userList")
+public class UserFields extends LinkedHashMap<String, Object> {
+    public Long getId() {
+        return (Long) get("id");
+    }
+}
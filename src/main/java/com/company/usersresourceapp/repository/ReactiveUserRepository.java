@@ -0,0 +1,18 @@
+package com.company.usersresourceapp.repository;
+
+import com.company.usersresourceapp.model.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import reactor.core.publisher.Flux;
+
+/**
+ * R2DBC access to users for the reactive stack, rows are emitted as they are read and as fast as they are requested.
+ */
+public interface ReactiveUserRepository extends R2dbcRepository<User, Long> {
+    /**
+     * Keyset page over the primary key: users with an id strictly greater than the given one, in id order.
+     */
+    Flux<User> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    Flux<User> findAllByOrderByIdAsc();
+}
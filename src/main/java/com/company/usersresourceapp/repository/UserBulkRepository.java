@@ -0,0 +1,40 @@
+package com.company.usersresourceapp.repository;
+
+import com.company.usersresourceapp.model.User;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Updates and deletes many users with a single statement, which also returns the rows it changed
+ * (an H2 data change delta table), so that callers can refresh whatever they derive from the users.
+ * Must be called inside a transaction, which is flushed and cleared first.
+ */
+public interface UserBulkRepository {
+    /**
+     * Sets the given fields of the users with the given ids and increments their versions.
+     * @param values persistent attributes of {@link User} mapped to their new values, except the id and the version
+     * @return the updated users, in no particular order
+     */
+    List<User> updateUsersById(Map<String, Object> values, Collection<Long> ids);
+
+    /**
+     * Same as {@link #updateUsersById}, for the first users by id born within the given range, bounds included,
+     * with an id greater than the given one.
+     */
+    List<User> updateUsersByBirthDateBetween(Map<String, Object> values, Date from, Date to, Long after, int limit);
+
+    /**
+     * Deletes the users with the given ids.
+     * @return ids of the deleted users, in no particular order
+     */
+    List<Long> deleteUsersById(Collection<Long> ids);
+
+    /**
+     * Same as {@link #deleteUsersById}, for the first users by id born within the given range, bounds included,
+     * with an id greater than the given one.
+     */
+    List<Long> deleteUsersByBirthDateBetween(Date from, Date to, Long after, int limit);
+}
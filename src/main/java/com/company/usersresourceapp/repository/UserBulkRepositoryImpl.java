@@ -0,0 +1,108 @@
+package com.company.usersresourceapp.repository;
+
+import com.company.usersresourceapp.model.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+class UserBulkRepositoryImpl implements UserBulkRepository {
+    /**
+     * Columns of the attributes that can be set in bulk. Attribute names are also the names of their parameters.
+     */
+    private static final Map<String, String> COLUMNS = Map.of(
+            "email", "email",
+            "firstName", "first_name",
+            "lastName", "last_name",
+            "birthDate", "birth_date",
+            "address", "address",
+            "phoneNumber", "phone_number");
+
+    private static final String BY_ID = "id in (:ids)";
+
+    // Keyset chunk over the primary key, so that a user moved out of the range by the update is not skipped over
+    private static final String BY_BIRTH_DATE = """
+            id in (
+                select id from user where birth_date between :from and :to and id > :after
+                order by id fetch first :limit rows only
+            )""";
+
+    private final EntityManager entityManager;
+
+    UserBulkRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<User> updateUsersById(Map<String, Object> values, Collection<Long> ids) {
+        return resultList(update(values, BY_ID).setParameter("ids", ids), User.class);
+    }
+
+    @Override
+    public List<User> updateUsersByBirthDateBetween(Map<String, Object> values, Date from, Date to, Long after, int limit) {
+        return resultList(byBirthDate(update(values, BY_BIRTH_DATE), from, to, after, limit), User.class);
+    }
+
+    @Override
+    public List<Long> deleteUsersById(Collection<Long> ids) {
+        return resultList(delete(BY_ID).setParameter("ids", ids), Long.class);
+    }
+
+    @Override
+    public List<Long> deleteUsersByBirthDateBetween(Date from, Date to, Long after, int limit) {
+        return resultList(byBirthDate(delete(BY_BIRTH_DATE), from, to, after, limit), Long.class);
+    }
+
+    private Query update(Map<String, Object> values, String restriction) {
+        StringJoiner assignments = new StringJoiner(", ");
+        values.keySet().forEach(attribute -> assignments.add(column(attribute) + " = :" + attribute));
+        assignments.add("version = version + 1");
+        clearPersistenceContext();
+        Query query = entityManager.createNativeQuery("select * from final table (update user set " + assignments
+                + " where " + restriction + ")", User.class);
+        values.forEach(query::setParameter);
+        return query;
+    }
+
+    private Query delete(String restriction) {
+        clearPersistenceContext();
+        return entityManager.createNativeQuery("select id from old table (delete from user where " + restriction + ")",
+                Long.class);
+    }
+
+    /**
+     * Flushes and clears the persistence context, like a {@code @Modifying(flushAutomatically = true,
+     * clearAutomatically = true)} query: returned users are then read from the updated rows, not from
+     * the state of entities loaded before, and no entity outlives the row it was loaded from.
+     */
+    private void clearPersistenceContext() {
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    // Native queries are untyped in JPA: every row is checked against the class the query was created with
+    private static <T> List<T> resultList(Query query, Class<T> resultClass) {
+        List<?> rows = query.getResultList();
+        return rows.stream().map(resultClass::cast).toList();
+    }
+
+    private static Query byBirthDate(Query query, Date from, Date to, Long after, int limit) {
+        return query
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .setParameter("after", after)
+                .setParameter("limit", limit);
+    }
+
+    private static String column(String attribute) {
+        String column = COLUMNS.get(attribute);
+        if (column == null) {
+            throw new IllegalArgumentException("Attribute '" + attribute + "' can't be updated in bulk");
+        }
+        return column;
+    }
+}
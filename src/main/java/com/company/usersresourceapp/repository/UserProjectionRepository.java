@@ -0,0 +1,24 @@
+package com.company.usersresourceapp.repository;
+
+import com.company.usersresourceapp.model.UserFields;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.util.Collection;
+import java.util.Date;
+
+/**
+ * Queries that only select some columns of the users. The id is always selected, the other fields
+ * must be persistent attributes of {@link com.company.usersresourceapp.model.User}.
+ */
+public interface UserProjectionRepository {
+    /**
+     * Same as {@link UserRepository#findByIdGreaterThanOrderByIdAsc}, selecting only the given fields.
+     */
+    Slice<UserFields> findFieldsByIdGreaterThan(Collection<String> fields, Long id, Pageable pageable);
+
+    /**
+     * Same as {@link UserRepository#findByBirthDateBetween}, selecting only the given fields.
+     */
+    Slice<UserFields> findFieldsByBirthDateBetween(Collection<String> fields, Date from, Date to, Pageable pageable);
+}
@@ -0,0 +1,79 @@
+package com.company.usersresourceapp.repository;
+
+import com.company.usersresourceapp.model.User;
+import com.company.usersresourceapp.model.UserFields;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TupleElement;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiFunction;
+
+class UserProjectionRepositoryImpl implements UserProjectionRepository {
+    private final EntityManager entityManager;
+
+    UserProjectionRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public Slice<UserFields> findFieldsByIdGreaterThan(Collection<String> fields, Long id, Pageable pageable) {
+        return find(fields, (builder, root) -> builder.greaterThan(root.get("id"), id),
+                pageable, Sort.by("id"));
+    }
+
+    @Override
+    public Slice<UserFields> findFieldsByBirthDateBetween(Collection<String> fields, Date from, Date to, Pageable pageable) {
+        return find(fields, (builder, root) -> builder.between(root.get("birthDate"), from, to),
+                pageable, pageable.getSort());
+    }
+
+    private Slice<UserFields> find(Collection<String> fields,
+                                   BiFunction<CriteriaBuilder, Root<User>, Predicate> restriction,
+                                   Pageable pageable, Sort sort) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = builder.createTupleQuery();
+        Root<User> root = query.from(User.class);
+        Set<String> selectedFields = new LinkedHashSet<>();
+        selectedFields.add("id");
+        selectedFields.addAll(fields);
+        List<Selection<?>> selections = new ArrayList<>(selectedFields.size());
+        for (String field : selectedFields) {
+            selections.add(root.get(field).alias(field));
+        }
+        query.multiselect(selections)
+                .where(restriction.apply(builder, root))
+                .orderBy(QueryUtils.toOrders(sort, root, builder));
+
+        // One more row than the page size tells whether there is a next page, like a derived Slice query
+        TypedQuery<Tuple> typedQuery = entityManager.createQuery(query)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize() + 1);
+        List<UserFields> users = new ArrayList<>(pageable.getPageSize() + 1);
+        for (Tuple tuple : typedQuery.getResultList()) {
+            UserFields user = new UserFields();
+            for (TupleElement<?> element : tuple.getElements()) {
+                user.put(element.getAlias(), tuple.get(element));
+            }
+            users.add(user);
+        }
+        boolean hasNext = users.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? users.subList(0, pageable.getPageSize()) : users, pageable, hasNext);
+    }
+}
@@ -1,11 +1,98 @@
 package com.company.usersresourceapp.repository;
 
 import com.company.usersresourceapp.model.User;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Date;
-import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface UserRepository extends JpaRepository<User, Long> {
-    List<User> findByBirthDateBetween(Date from, Date to);
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
+public interface UserRepository extends JpaRepository<User, Long>, UserProjectionRepository, UserBulkRepository {
+    Slice<User> findByBirthDateBetween(Date from, Date to, Pageable pageable);
+
+    /**
+     * Keyset page over the primary key: users with an id strictly greater than the given one, in id order.
+     * A {@link Slice} only fetches one extra row to detect the next page, no count query is issued.
+     */
+    Slice<User> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    /**
+     * Streams all users in id order from a forward-only cursor. Entities are loaded read-only,
+     * so no dirty-checking snapshots are kept. Must be consumed inside a transaction and closed.
+     */
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("select u from User u order by u.id")
+    Stream<User> streamAllOrderById();
+
+    /**
+     * Reads the version of a user, without loading the user into the persistence context.
+     */
+    @Query("select u.version from User u where u.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    /**
+     * Deletes a user with a single statement, without loading it first.
+     * @return number of deleted users, 0 if no user has the id
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from User u where u.id = :id")
+    int deleteUserById(@Param("id") Long id);
+
+    /**
+     * Updates the fields of a user and increments its version with a single statement, which also returns
+     * the new state of the user (an H2 data change delta table). A null address or phone number is left unchanged.
+     * @param user id and new values of the fields
+     * @param version version the user must have to be updated, or null to update whatever its version is
+     * @return the updated user, or nothing if no user has the id, or the user doesn't have the version
+     */
+    @Transactional
+    @Query(nativeQuery = true, value = """
+            select * from final table (
+                update user set
+                    email = :#{#user.email},
+                    first_name = :#{#user.firstName},
+                    last_name = :#{#user.lastName},
+                    birth_date = :#{#user.birthDate},
+                    address = coalesce(:#{#user.address}, address),
+                    phone_number = coalesce(:#{#user.phoneNumber}, phone_number),
+                    version = version + 1
+                where id = :#{#user.id} and (cast(:version as bigint) is null or version = :version)
+            )""")
+    Optional<User> updateUser(@Param("user") User user, @Param("version") Long version);
+
+    /**
+     * Same as {@link #updateUser(User, Long)}, writing every field as it is in the user, nulls included.
+     * @param user id and values of all the fields
+     * @param version version the user must have to be updated, or null to update whatever its version is
+     * @return the updated user, or nothing if no user has the id, or the user doesn't have the version
+     */
+    @Transactional
+    @Query(nativeQuery = true, value = """
+            select * from final table (
+                update user set
+                    email = :#{#user.email},
+                    first_name = :#{#user.firstName},
+                    last_name = :#{#user.lastName},
+                    birth_date = :#{#user.birthDate},
+                    address = :#{#user.address},
+                    phone_number = :#{#user.phoneNumber},
+                    version = version + 1
+                where id = :#{#user.id} and (cast(:version as bigint) is null or version = :version)
+            )""")
+    Optional<User> replaceUser(@Param("user") User user, @Param("version") Long version);
 }
@@ -0,0 +1,198 @@
+package com.company.usersresourceapp.service;
+
+import com.company.usersresourceapp.exception.PreconditionFailedException;
+import com.company.usersresourceapp.exception.UserNotFoundException;
+import com.company.usersresourceapp.model.BatchItemResult;
+import com.company.usersresourceapp.model.User;
+import com.company.usersresourceapp.repository.ReactiveUserRepository;
+import com.company.usersresourceapp.util.UserFieldSetters;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mapping.PropertyPath;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.springframework.data.relational.core.query.Criteria.where;
+import static org.springframework.data.relational.core.query.Query.query;
+
+/**
+ * Non-blocking counterpart of {@link UserService} for the {@code reactive} profile, backed by R2DBC.
+ * Collections are returned as {@link Flux} so that rows are only read as fast as the client consumes them.
+ */
+@Service
+@Profile("reactive")
+@Slf4j
+public class ReactiveUserService {
+    private final ReactiveUserRepository userRepository;
+
+    private final R2dbcEntityTemplate entityTemplate;
+
+    private final Validator validator;
+
+    private final UserFieldSetters userFieldSetters;
+
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private final AtomicLong modificationCount = new AtomicLong();
+
+    public ReactiveUserService(ReactiveUserRepository userRepository, R2dbcEntityTemplate entityTemplate,
+                               Validator validator, UserFieldSetters userFieldSetters) {
+        this.userRepository = userRepository;
+        this.entityTemplate = entityTemplate;
+        this.validator = validator;
+        this.userFieldSetters = userFieldSetters;
+    }
+
+    public Mono<User> createNewUser(User user) {
+        // The id is always assigned by the database, like the servlet stack does
+        user.setId(null);
+        user.setVersion(null);
+        return userRepository.save(user)
+                .doOnSuccess(created -> modificationCount.incrementAndGet());
+    }
+
+    /**
+     * Creates users as they are read from the request. Every user is validated on its own and inserted
+     * in its own statement, so one bad user doesn't fail the others.
+     * @param users users to create
+     * @return one result per user, in the same order
+     */
+    public Flux<BatchItemResult> createNewUsers(Flux<User> users) {
+        return users.index().concatMap(indexed -> {
+            int index = indexed.getT1().intValue();
+            User user = indexed.getT2();
+            Set<ConstraintViolation<User>> violations = validator.validate(user);
+            if (!violations.isEmpty()) {
+                return Mono.just(BatchItemResult.rejected(index,
+                        violations.stream().map(ConstraintViolation::getMessage).toList()));
+            }
+            return createNewUser(user)
+                    .map(created -> BatchItemResult.created(index, created.getId()))
+                    .onErrorResume(DataAccessException.class, e -> {
+                        log.warn("Could not create user {} of a batch: {}", index,
+                                NestedExceptionUtils.getMostSpecificCause(e).getLocalizedMessage());
+                        return Mono.just(BatchItemResult.failed(index));
+                    });
+        });
+    }
+
+    public Mono<User> findUserById(Long id) {
+        return userRepository.findById(id)
+                .switchIfEmpty(Mono.error(() -> new UserNotFoundException(id)));
+    }
+
+    /**
+     * Finds users ordered by id, starting right after the given id (keyset pagination).
+     * @param after id of the last user of the previous page, or null to start from the beginning
+     * @param limit maximum number of users
+     * @return users in id order
+     */
+    public Flux<User> findUsersAfter(Long after, int limit) {
+        return userRepository.findByIdGreaterThanOrderByIdAsc(after == null ? 0L : after, PageRequest.ofSize(limit));
+    }
+
+    /**
+     * Emits every user, in id order, as the subscriber requests them.
+     */
+    public Flux<User> exportUsers() {
+        return userRepository.findAllByOrderByIdAsc();
+    }
+
+    /**
+     * @see UserService#getUsersVersion()
+     */
+    public String getUsersVersion() {
+        return instanceId + "-" + modificationCount.get();
+    }
+
+    /**
+     * @see UserService#updateUser(User, Long, Long)
+     */
+    public Mono<User> updateUser(User updatedUser, Long id, Long expectedVersion) {
+        return findUserById(id, expectedVersion).flatMap(user -> {
+            user.setEmail(updatedUser.getEmail());
+            user.setFirstName(updatedUser.getFirstName());
+            user.setLastName(updatedUser.getLastName());
+            user.setBirthDate(updatedUser.getBirthDate());
+            if (updatedUser.getAddress() != null) {
+                user.setAddress(updatedUser.getAddress());
+            }
+            if (updatedUser.getPhoneNumber() != null) {
+                user.setPhoneNumber(updatedUser.getPhoneNumber());
+            }
+            return save(user, expectedVersion);
+        });
+    }
+
+    /**
+     * Updates only the given fields of a user and validates the result against the {@link User} constraints.
+     * @param fields field names mapped to their new values
+     * @param id id of the user to update
+     * @param expectedVersion version the client read the user at, or null to update whatever the current version is
+     * @return updated user, or {@link PreconditionFailedException} if it has been modified since the expected version
+     */
+    public Mono<User> updateUserByFields(Map<Object, Object> fields, Long id, Long expectedVersion) {
+        return findUserById(id, expectedVersion).flatMap(user -> {
+            userFieldSetters.apply(user, fields);
+            Set<ConstraintViolation<User>> violations = validator.validate(user);
+            if (!violations.isEmpty()) {
+                return Mono.error(new ConstraintViolationException(violations));
+            }
+            return save(user, expectedVersion);
+        });
+    }
+
+    public Mono<Void> deleteUserById(Long id) {
+        return findUserById(id).flatMap(userRepository::delete)
+                .doOnSuccess(deleted -> modificationCount.incrementAndGet());
+    }
+
+    /**
+     * Finds users born within the given range, bounds included.
+     * @param from beginning of the range
+     * @param to end of the range
+     * @param sort order of the users, sorting by birth date and id follows the birth date index
+     * @param offset number of matching users to skip
+     * @param limit maximum number of users
+     * @return users in the given order
+     */
+    public Flux<User> searchByDate(Date from, Date to, Sort sort, long offset, int limit) {
+        // Unknown properties fail with a PropertyReferenceException, as they do with the JPA repository
+        sort.forEach(order -> PropertyPath.from(order.getProperty(), User.class));
+        return entityTemplate.select(User.class)
+                .matching(query(where("birthDate").between(from, to)).sort(sort).offset(offset).limit(limit))
+                .all();
+    }
+
+    private Mono<User> findUserById(Long id, Long expectedVersion) {
+        return findUserById(id).flatMap(user -> expectedVersion != null && !expectedVersion.equals(user.getVersion())
+                ? Mono.error(new PreconditionFailedException(id))
+                : Mono.just(user));
+    }
+
+    /**
+     * Saves a modified user, the update only applies if the version is still the one that was read.
+     */
+    private Mono<User> save(User user, Long expectedVersion) {
+        return userRepository.save(user)
+                .onErrorMap(OptimisticLockingFailureException.class,
+                        e -> expectedVersion != null ? new PreconditionFailedException(user.getId()) : e)
+                .doFinally(signal -> modificationCount.incrementAndGet());
+    }
+}
@@ -1,86 +1,513 @@
 package com.company.usersresourceapp.service;
 
 import com.company.usersresourceapp.exception.ParametersValidationException;
+import com.company.usersresourceapp.exception.PreconditionFailedException;
 import com.company.usersresourceapp.exception.UserNotFoundException;
+import com.company.usersresourceapp.model.BatchItemResult;
 import com.company.usersresourceapp.model.User;
+import com.company.usersresourceapp.model.UserFields;
 import com.company.usersresourceapp.repository.UserRepository;
+import com.company.usersresourceapp.util.LongHashSet;
+import com.company.usersresourceapp.util.LongObjectHashMap;
+import com.company.usersresourceapp.util.UserFieldSetters;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
-import org.springframework.util.ReflectionUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 @Service
+@Profile("!reactive")
+@Slf4j
 public class UserService {
+    /**
+     * Read-through cache of users by id, see {@code spring.cache.caffeine.spec} for its bounds.
+     */
+    public static final String USERS_CACHE = "users";
+
+    /**
+     * Fields that a sparse fieldset can select: every persistent field of a user except its version.
+     */
+    private static final Set<String> SELECTABLE_FIELDS =
+            Set.of("id", "email", "firstName", "lastName", "birthDate", "address", "phoneNumber");
+
     private final UserRepository userRepository;
 
-    public UserService(UserRepository userRepository) {
+    private final EntityManager entityManager;
+
+    private final Validator validator;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final UserFieldSetters userFieldSetters;
+
+    private final UserTextIndex userTextIndex;
+
+    private final UserSnapshotStore userSnapshotStore;
+
+    private final CacheManager cacheManager;
+
+    /**
+     * Identifies this run of the application, so that modification counts of different runs never collide.
+     */
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private final AtomicLong modificationCount = new AtomicLong();
+
+    @Value("${batch.users.chunk.size}")
+    private int batchChunkSize;
+
+    public UserService(UserRepository userRepository, EntityManager entityManager, Validator validator,
+                       PlatformTransactionManager transactionManager, UserFieldSetters userFieldSetters,
+                       UserTextIndex userTextIndex, UserSnapshotStore userSnapshotStore, CacheManager cacheManager) {
         this.userRepository = userRepository;
+        this.entityManager = entityManager;
+        this.validator = validator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.userFieldSetters = userFieldSetters;
+        this.userTextIndex = userTextIndex;
+        this.userSnapshotStore = userSnapshotStore;
+        this.cacheManager = cacheManager;
     }
 
+    @CachePut(cacheNames = USERS_CACHE, key = "#result.id")
     public User createNewUser(@Valid User user) {
-        return userRepository.save(user);
+        User createdUser = userRepository.save(user);
+        modificationCount.incrementAndGet();
+        userTextIndex.put(createdUser);
+        userSnapshotStore.put(createdUser);
+        return createdUser;
     }
 
+    /**
+     * Creates many users at once. Every user is validated on its own, valid ones are inserted in chunks,
+     * each chunk in its own transaction, so that JDBC batching applies and one bad user doesn't fail the others.
+     * If a chunk is rejected by the database, its users are retried one by one to find the culprit.
+     * @param users users to create
+     * @return one result per user, in the same order
+     */
+    public List<BatchItemResult> createNewUsers(List<User> users) {
+        BatchItemResult[] results = new BatchItemResult[users.size()];
+        List<Integer> chunk = new ArrayList<>(batchChunkSize);
+        for (int i = 0; i < users.size(); i++) {
+            Set<ConstraintViolation<User>> violations = validator.validate(users.get(i));
+            if (!violations.isEmpty()) {
+                results[i] = BatchItemResult.rejected(i, violations.stream().map(ConstraintViolation::getMessage).toList());
+                continue;
+            }
+            chunk.add(i);
+            if (chunk.size() == batchChunkSize) {
+                insertChunk(users, chunk, results);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            insertChunk(users, chunk, results);
+        }
+        return Arrays.asList(results);
+    }
+
+    private void insertChunk(List<User> users, List<Integer> chunk, BatchItemResult[] results) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                chunk.forEach(i -> entityManager.persist(users.get(i)));
+                entityManager.flush();
+            });
+            chunk.forEach(i -> {
+                results[i] = BatchItemResult.created(i, users.get(i).getId());
+                userTextIndex.put(users.get(i));
+                userSnapshotStore.put(users.get(i));
+            });
+        } catch (PersistenceException | DataAccessException | TransactionException e) {
+            entityManager.clear();
+            chunk.forEach(i -> {
+                User user = users.get(i);
+                user.setId(null);
+                try {
+                    transactionTemplate.executeWithoutResult(status -> {
+                        entityManager.persist(user);
+                        entityManager.flush();
+                    });
+                    results[i] = BatchItemResult.created(i, user.getId());
+                    userTextIndex.put(user);
+                    userSnapshotStore.put(user);
+                } catch (PersistenceException | DataAccessException | TransactionException ex) {
+                    log.warn("Could not create user {} of a batch: {}", i,
+                            NestedExceptionUtils.getMostSpecificCause(ex).getLocalizedMessage());
+                    results[i] = BatchItemResult.failed(i);
+                }
+            });
+        } finally {
+            // The request-scoped persistence context would otherwise keep every inserted user
+            entityManager.clear();
+            modificationCount.incrementAndGet();
+        }
+    }
+
+    @Cacheable(cacheNames = USERS_CACHE, key = "#id")
     public User findUserById(Long id) {
+        if (userSnapshotStore.isServing()) {
+            return userSnapshotStore.findById(id).orElseThrow(() -> new UserNotFoundException(id));
+        }
         return userRepository.findById(id).orElseThrow(() -> new UserNotFoundException(id));
     }
 
-    public List<User> findAllUsers() {
-        return userRepository.findAll();
+    /**
+     * Reads the current version of a user. Unlike {@link #findUserById(Long)}, the user is never loaded into
+     * the persistence context of the request, where it would stand for the row returned by a later update.
+     * @throws UserNotFoundException if no user has the id
+     */
+    public Long findUserVersion(Long id) {
+        return userRepository.findVersionById(id).orElseThrow(() -> new UserNotFoundException(id));
     }
 
-    public User updateUser(User updatedUser, Long id) {
-        User user = findUserById(id);
-        user.setEmail(updatedUser.getEmail());
-        user.setFirstName(updatedUser.getFirstName());
-        user.setLastName(updatedUser.getLastName());
-        user.setBirthDate(updatedUser.getBirthDate());
-        setValue(user::setAddress, updatedUser.getAddress());
-        setValue(user::setPhoneNumber, updatedUser.getPhoneNumber());
-        return userRepository.save(user);
+    /**
+     * Finds a page of users ordered by id, starting right after the given id (keyset pagination).
+     * @param after id of the last user of the previous page, or null to start from the beginning
+     * @param limit maximum number of users in the page
+     * @return slice of users, which knows whether a next page exists
+     */
+    public Slice<User> findUsersAfter(Long after, int limit) {
+        return userRepository.findByIdGreaterThanOrderByIdAsc(after == null ? 0L : after, PageRequest.ofSize(limit));
     }
 
-    public User updateUserByFields(Map<Object, Object> fields, Long id) {
-        User user = findUserById(id);
-        fields.forEach((key, value) -> {
-            Field field = ReflectionUtils.findField(User.class, (String) key);
-            if (field == null) {
-                throw new ParametersValidationException("Field '" + key + "' is not valid.");
-            }
-            field.setAccessible(true);
-            ReflectionUtils.setField(field, user, value);
-        });
-        return userRepository.save(user);
+    /**
+     * Same as {@link #findUsersAfter(Long, int)}, reading only the given fields of the users, and their id.
+     * @throws ParametersValidationException if a field can't be selected
+     */
+    public Slice<UserFields> findUsersAfter(Long after, int limit, Set<String> fields) {
+        return userRepository.findFieldsByIdGreaterThan(checkFields(fields), after == null ? 0L : after,
+                PageRequest.ofSize(limit));
     }
 
+    /**
+     * Passes every user, in id order, to the given consumer while streaming them from a database cursor.
+     * Each user is detached right after it has been consumed, so the persistence context never grows.
+     * @param consumer receives users one by one, e.g. to write them to a response
+     */
+    @Transactional(readOnly = true)
+    public void exportUsers(Consumer<User> consumer) {
+        try (Stream<User> users = userRepository.streamAllOrderById()) {
+            users.forEach(user -> {
+                consumer.accept(user);
+                entityManager.detach(user);
+            });
+        }
+    }
+
+    /**
+     * Version of the whole users collection: it changes after every write, so a listing or a search
+     * can only have changed if it did. Cheap enough to be checked before running any query.
+     * <p>
+     * The version is counted in this process and only sees writes made through this service: rows changed
+     * by another instance or straight in the database, e.g. by an import, don't change it, so entity tags of
+     * listings and searches and the response cache keep serving what was rendered before until the next write
+     * here or a restart.
+     * @return opaque version, unique across restarts of the application
+     */
+    public String getUsersVersion() {
+        return instanceId + "-" + modificationCount.get();
+    }
+
+    /**
+     * Replaces the fields of a user.
+     * @param updatedUser new values of the fields
+     * @param id id of the user to update
+     * @param expectedVersion version the client read the user at, or null to update whatever the current version is
+     * @return updated user
+     * @throws PreconditionFailedException if the user has been modified since the expected version
+     */
+    @CachePut(cacheNames = USERS_CACHE, key = "#id")
+    public User updateUser(User updatedUser, Long id, Long expectedVersion) {
+        // Written straight to the row, a null address or phone number keeps the current one
+        updatedUser.setId(id);
+        return update(id, expectedVersion, () -> userRepository.updateUser(updatedUser, expectedVersion));
+    }
+
+    /**
+     * Updates only the given fields of a user and validates the result against the {@link User} constraints.
+     * @param fields field names mapped to their new values
+     * @param id id of the user to update
+     * @param expectedVersion version the client read the user at, or null to update whatever the current version is
+     * @return updated user
+     * @throws PreconditionFailedException if the user has been modified since the expected version
+     */
+    @CachePut(cacheNames = USERS_CACHE, key = "#id")
+    public User updateUserByFields(Map<Object, Object> fields, Long id, Long expectedVersion) {
+        User user = findUserById(id, expectedVersion);
+        // Changed detached, so that the persistence context of the request never flushes it on its own
+        entityManager.detach(user);
+        userFieldSetters.apply(user, fields);
+        Set<ConstraintViolation<User>> violations = validator.validate(user);
+        if (!violations.isEmpty()) {
+            throw new ConstraintViolationException(violations);
+        }
+        // Only written if nobody modified the user since it was read, a field patched to null is cleared
+        return update(id, expectedVersion, () -> userRepository.replaceUser(user, user.getVersion()));
+    }
+
+    /**
+     * Deletes a user with a single statement.
+     * @throws UserNotFoundException if no user has the id
+     */
+    @CacheEvict(cacheNames = USERS_CACHE, key = "#id")
     public void deleteUserById(Long id) {
-        userRepository.findById(id)
-                .ifPresentOrElse(
-                        user -> userRepository.deleteById(id),
-                        () -> {
-                            throw new UserNotFoundException(id);
-                        }
-                );
+        if (userRepository.deleteUserById(id) == 0) {
+            throw new UserNotFoundException(id);
+        }
+        modificationCount.incrementAndGet();
+        userTextIndex.remove(id);
+        userSnapshotStore.remove(id);
+    }
+
+    /**
+     * Sets the given fields of many users, validated against the {@link User} constraints. Ids are updated
+     * in chunks of {@code batch.users.chunk.size}, each chunk with a single statement in its own transaction.
+     * @param fields field names mapped to their new values, the email can't be set in bulk since it is unique
+     * @param ids ids of the users to update, unknown ids are ignored
+     * @return number of updated users
+     */
+    public long updateUsersById(Map<Object, Object> fields, Collection<Long> ids) {
+        Map<String, Object> values = checkBulkFields(fields);
+        long updated = 0;
+        for (List<Long> chunk : chunks(ids)) {
+            updated += updateChunk(() -> userRepository.updateUsersById(values, chunk)).size();
+        }
+        return updated;
+    }
+
+    /**
+     * Same as {@link #updateUsersById}, for the users born within the given range, bounds included,
+     * chunked by id. A user is updated once, even if it is moved within the range.
+     */
+    public long updateUsersByBirthDateBetween(Map<Object, Object> fields, Date from, Date to) {
+        Map<String, Object> values = checkBulkFields(fields);
+        long updated = 0;
+        long after = 0;
+        List<User> chunk;
+        do {
+            long chunkAfter = after;
+            chunk = updateChunk(() -> userRepository.updateUsersByBirthDateBetween(values, from, to, chunkAfter, batchChunkSize));
+            updated += chunk.size();
+            after = chunk.stream().mapToLong(User::getId).max().orElse(after);
+        } while (chunk.size() == batchChunkSize);
+        return updated;
+    }
+
+    /**
+     * Deletes many users, in chunks of {@code batch.users.chunk.size} ids, each chunk with a single statement
+     * in its own transaction.
+     * @param ids ids of the users to delete, unknown ids are ignored
+     * @return number of deleted users
+     */
+    public long deleteUsersById(Collection<Long> ids) {
+        long deleted = 0;
+        for (List<Long> chunk : chunks(ids)) {
+            deleted += deleteChunk(() -> userRepository.deleteUsersById(chunk)).size();
+        }
+        return deleted;
     }
 
-    public List<User> searchByDate(Date from, Date to) {
-        return userRepository.findByBirthDateBetween(from, to);
+    /**
+     * Same as {@link #deleteUsersById}, for the users born within the given range, bounds included, chunked by id.
+     */
+    public long deleteUsersByBirthDateBetween(Date from, Date to) {
+        long deleted = 0;
+        long after = 0;
+        List<Long> chunk;
+        do {
+            long chunkAfter = after;
+            chunk = deleteChunk(() -> userRepository.deleteUsersByBirthDateBetween(from, to, chunkAfter, batchChunkSize));
+            deleted += chunk.size();
+            after = chunk.stream().mapToLong(Long::longValue).max().orElse(after);
+        } while (chunk.size() == batchChunkSize);
+        return deleted;
+    }
+
+    /**
+     * Finds a page of users born within the given range, bounds included.
+     * @param from beginning of the range
+     * @param to end of the range
+     * @param pageable page and sort order, sorting by birth date and id follows the birth date index,
+     *                 and lets the {@link UserSnapshotStore} serve the page when it is enabled
+     * @return slice of users, which knows whether a next page exists
+     */
+    public Slice<User> searchByDate(Date from, Date to, Pageable pageable) {
+        if (userSnapshotStore.canSearchByBirthDate(pageable)) {
+            return userSnapshotStore.searchByBirthDate(from, to, pageable);
+        }
+        return userRepository.findByBirthDateBetween(from, to, pageable);
     }
 
     /**
-     * Set values via setter method if it is not null, used to modify an object via setter
-     * @param setter method that changes the state of an object
-     * @param value to set
-     * @param <T> generic
+     * Same as {@link #searchByDate(Date, Date, Pageable)}, reading only the given fields of the users, and their id.
+     * @throws ParametersValidationException if a field can't be selected
      */
-    private <T> void setValue(Consumer<T> setter, T value) {
-        if (value != null) {
-            setter.accept(value);
+    public Slice<UserFields> searchByDate(Date from, Date to, Pageable pageable, Set<String> fields) {
+        return userRepository.findFieldsByBirthDateBetween(checkFields(fields), from, to, pageable);
+    }
+
+    /**
+     * Finds the users whose email, first name or last name match every word of the query, see {@link UserTextIndex}.
+     * @param query words to look up, a word shorter than three characters only matches the start of a name or email
+     * @param limit maximum number of users returned
+     * @return matching users, best match first
+     */
+    public List<User> searchByText(String query, int limit) {
+        List<Long> ids = userTextIndex.search(query, limit);
+        LongObjectHashMap<User> users = new LongObjectHashMap<>(ids.size());
+        userRepository.findAllById(ids).forEach(user -> users.put(user.getId(), user));
+        // A user deleted since the index was searched is simply left out
+        return ids.stream().map(users::get).filter(Objects::nonNull).toList();
+    }
+
+    private static Set<String> checkFields(Set<String> fields) {
+        if (fields.isEmpty()) {
+            throw new ParametersValidationException("Parameter 'fields' can't be empty");
+        }
+        for (String field : fields) {
+            if (!SELECTABLE_FIELDS.contains(field)) {
+                throw new ParametersValidationException("Field '" + field + "' is not valid.");
+            }
+        }
+        return fields;
+    }
+
+    private Map<String, Object> checkBulkFields(Map<Object, Object> fields) {
+        if (fields.isEmpty()) {
+            throw new ParametersValidationException("No field to update.");
+        }
+        if (fields.containsKey("email")) {
+            throw new ParametersValidationException("Field 'email' can't be updated in bulk.");
+        }
+        Map<String, Object> values = userFieldSetters.convert(fields);
+        Set<ConstraintViolation<User>> violations = new HashSet<>();
+        values.forEach((field, value) -> violations.addAll(validator.validateValue(User.class, field, value)));
+        if (!violations.isEmpty()) {
+            throw new ConstraintViolationException(violations);
+        }
+        return values;
+    }
+
+    // Repeated ids are dropped, the first occurrence of every id keeps its place
+    private List<List<Long>> chunks(Collection<Long> ids) {
+        LongHashSet seen = new LongHashSet(ids.size());
+        List<Long> distinctIds = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            if (id != null && seen.add(id)) {
+                distinctIds.add(id);
+            }
+        }
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < distinctIds.size(); from += batchChunkSize) {
+            chunks.add(distinctIds.subList(from, Math.min(from + batchChunkSize, distinctIds.size())));
+        }
+        return chunks;
+    }
+
+    private List<User> updateChunk(Supplier<List<User>> update) {
+        try {
+            List<User> users = transactionTemplate.execute(status -> update.get());
+            Cache cache = cacheManager.getCache(USERS_CACHE);
+            users.forEach(user -> {
+                // Evicted rather than refreshed, most of the updated users are not cached anyway
+                cache.evict(user.getId());
+                userTextIndex.put(user);
+                userSnapshotStore.put(user);
+            });
+            return users;
+        } finally {
+            // The request-scoped persistence context would otherwise keep every updated user
+            entityManager.clear();
+            modificationCount.incrementAndGet();
+        }
+    }
+
+    private List<Long> deleteChunk(Supplier<List<Long>> delete) {
+        try {
+            List<Long> ids = transactionTemplate.execute(status -> delete.get());
+            Cache cache = cacheManager.getCache(USERS_CACHE);
+            ids.forEach(id -> {
+                cache.evict(id);
+                userTextIndex.remove(id);
+                userSnapshotStore.remove(id);
+            });
+            return ids;
+        } finally {
+            modificationCount.incrementAndGet();
+        }
+    }
+
+    private User findUserById(Long id, Long expectedVersion) {
+        User user = findUserById(id);
+        if (expectedVersion != null && !expectedVersion.equals(user.getVersion())) {
+            throw new PreconditionFailedException(id);
+        }
+        return user;
+    }
+
+    /**
+     * Writes the fields of a user with a single statement, which returns its new state.
+     * Only when no row was updated, a second statement tells a missing user from a modified one.
+     * @param id id of the user
+     * @param expectedVersion version the client read the user at, or null
+     * @param statement update of the row, conditional on its version
+     */
+    private User update(Long id, Long expectedVersion, Supplier<Optional<User>> statement) {
+        try {
+            User updatedUser = statement.get()
+                    .orElseThrow(() -> notUpdated(id, expectedVersion));
+            userTextIndex.put(updatedUser);
+            userSnapshotStore.put(updatedUser);
+            return updatedUser;
+        } finally {
+            modificationCount.incrementAndGet();
+        }
+    }
+
+    private RuntimeException notUpdated(Long id, Long expectedVersion) {
+        if (!userRepository.existsById(id)) {
+            return new UserNotFoundException(id);
+        }
+        if (expectedVersion != null) {
+            return new PreconditionFailedException(id);
         }
+        return new ObjectOptimisticLockingFailureException(User.class, id);
     }
 }
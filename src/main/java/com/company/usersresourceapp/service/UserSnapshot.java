@@ -0,0 +1,301 @@
+package com.company.usersresourceapp.service;
+
+import com.company.usersresourceapp.model.User;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Date;
+import java.util.Iterator;
+
+/**
+ * Immutable binary snapshot of the users, memory-mapped from a file, so that it lives in the page cache
+ * rather than on the heap. The file is laid out as:
+ * <ul>
+ *     <li>a header: magic number, format, number of users and size of the strings,</li>
+ *     <li>one fixed-width record per user, sorted by id: id, birth date (epoch milliseconds), version,
+ *     then the offsets of its email, first name, last name, address and phone number in the strings,</li>
+ *     <li>the birth date index: positions of the records sorted by birth date, then id,</li>
+ *     <li>the strings, each one as its length in bytes followed by its UTF-8 bytes.</li>
+ * </ul>
+ * Each section is mapped on its own and is limited to 2 GB, about 48 million users.
+ */
+final class UserSnapshot {
+    private static final int MAGIC = 0x55535253; // "USRS"
+
+    private static final int FORMAT = 1;
+
+    private static final int HEADER_SIZE = 16;
+
+    private static final int RECORD_SIZE = 44;
+
+    private static final int BIRTH_DATE = 8;
+
+    private static final int VERSION = 16;
+
+    private static final int STRINGS = 24;
+
+    private static final int NULL_STRING = -1;
+
+    private static final int MAX_STRING_LENGTH = 0xFFFF;
+
+    private final Path file;
+
+    private final int size;
+
+    private final ByteBuffer records;
+
+    private final IntBuffer birthDateIndex;
+
+    private final ByteBuffer strings;
+
+    private UserSnapshot(Path file, int size, ByteBuffer records, IntBuffer birthDateIndex, ByteBuffer strings) {
+        this.file = file;
+        this.size = size;
+        this.records = records;
+        this.birthDateIndex = birthDateIndex;
+        this.strings = strings;
+    }
+
+    /**
+     * Writes a snapshot of the given users to a file, then maps it. Records and strings are first written
+     * to two temporary files next to it, and the birth date index is sorted in place in the mapped file,
+     * so that writing takes no more heap than reading, whatever the number of users.
+     * @param file file to write, replaced if it exists
+     * @param usersById every user, in id order
+     */
+    static UserSnapshot write(Path file, Iterator<User> usersById) throws IOException {
+        Path recordsFile = Files.createTempFile(file.getParent(), "records", ".tmp");
+        Path stringsFile = Files.createTempFile(file.getParent(), "strings", ".tmp");
+        try {
+            int size = 0;
+            long stringsSize;
+            try (DataOutputStream records = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(recordsFile)));
+                 DataOutputStream strings = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(stringsFile)))) {
+                while (usersById.hasNext()) {
+                    if (size == Integer.MAX_VALUE / RECORD_SIZE) {
+                        throw new IllegalStateException("Too many users for a snapshot");
+                    }
+                    User user = usersById.next();
+                    records.writeLong(user.getId());
+                    records.writeLong(user.getBirthDate().getTime());
+                    records.writeLong(user.getVersion() == null ? 0 : user.getVersion());
+                    records.writeInt(writeString(strings, user.getEmail()));
+                    records.writeInt(writeString(strings, user.getFirstName()));
+                    records.writeInt(writeString(strings, user.getLastName()));
+                    records.writeInt(writeString(strings, user.getAddress()));
+                    records.writeInt(writeString(strings, user.getPhoneNumber()));
+                    size++;
+                }
+                stringsSize = strings.size();
+            }
+
+            long recordsSize = (long) size * RECORD_SIZE;
+            long indexSize = (long) size * Integer.BYTES;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(FORMAT).putInt(size)
+                        .putInt((int) stringsSize).flip();
+                channel.write(header, 0);
+                try (FileChannel records = FileChannel.open(recordsFile);
+                     FileChannel strings = FileChannel.open(stringsFile)) {
+                    transfer(records, channel, HEADER_SIZE, recordsSize);
+                    transfer(strings, channel, HEADER_SIZE + recordsSize + indexSize, stringsSize);
+                }
+                MappedByteBuffer mappedRecords = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, recordsSize);
+                MappedByteBuffer mappedIndex = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE + recordsSize, indexSize);
+                IntBuffer index = mappedIndex.asIntBuffer();
+                for (int i = 0; i < size; i++) {
+                    index.put(i, i);
+                }
+                sortByBirthDate(index, mappedRecords, size);
+                mappedIndex.force();
+            }
+        } finally {
+            Files.deleteIfExists(recordsFile);
+            Files.deleteIfExists(stringsFile);
+        }
+        return open(file);
+    }
+
+    /**
+     * Maps a snapshot written by {@link #write}.
+     * @throws IllegalStateException if the file isn't a snapshot in the current format
+     */
+    static UserSnapshot open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            channel.read(header, 0);
+            header.flip();
+            if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC || header.getInt() != FORMAT) {
+                throw new IllegalStateException(file + " is not a users snapshot");
+            }
+            int size = header.getInt();
+            int stringsSize = header.getInt();
+            long recordsSize = (long) size * RECORD_SIZE;
+            long indexSize = (long) size * Integer.BYTES;
+            return new UserSnapshot(file, size,
+                    channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, recordsSize),
+                    channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + recordsSize, indexSize).asIntBuffer(),
+                    channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + recordsSize + indexSize, stringsSize));
+        }
+    }
+
+    Path file() {
+        return file;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return position of the record of the user, or -1 if the snapshot doesn't have it
+     */
+    int positionOf(long id) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long middleId = id(middle);
+            if (middleId < id) {
+                low = middle + 1;
+            } else if (middleId > id) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return rank in the birth date index of the first user born at or after the given time,
+     * {@link #size()} if there is none
+     */
+    int firstBornFrom(long birthDate) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (birthDate(positionAt(middle)) < birthDate) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return position of the record of the user at the given rank in the birth date index
+     */
+    int positionAt(int rank) {
+        return birthDateIndex.get(rank);
+    }
+
+    long id(int position) {
+        return records.getLong(position * RECORD_SIZE);
+    }
+
+    long birthDate(int position) {
+        return records.getLong(position * RECORD_SIZE + BIRTH_DATE);
+    }
+
+    /**
+     * Decodes the record at the given position into a new, detached user.
+     */
+    User user(int position) {
+        int record = position * RECORD_SIZE;
+        int field = record + STRINGS;
+        return new User(records.getLong(record), string(field), string(field + 4), string(field + 8),
+                new Date(records.getLong(record + BIRTH_DATE)), string(field + 12), string(field + 16),
+                records.getLong(record + VERSION));
+    }
+
+    private String string(int field) {
+        int offset = records.getInt(field);
+        if (offset == NULL_STRING) {
+            return null;
+        }
+        byte[] bytes = new byte[Short.toUnsignedInt(strings.getShort(offset))];
+        strings.get(offset + Short.BYTES, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int writeString(DataOutputStream strings, String value) throws IOException {
+        if (value == null) {
+            return NULL_STRING;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_STRING_LENGTH) {
+            throw new IllegalArgumentException("String of " + bytes.length + " bytes is too long for a snapshot");
+        }
+        int offset = strings.size();
+        if (offset > Integer.MAX_VALUE - Short.BYTES - bytes.length) {
+            throw new IllegalStateException("Strings of the users are too large for a snapshot");
+        }
+        strings.writeShort(bytes.length);
+        strings.write(bytes);
+        return offset;
+    }
+
+    private static void transfer(FileChannel source, FileChannel target, long position, long count) throws IOException {
+        // Written at the position of the target, which unlike transferFrom may be past its end
+        target.position(position);
+        for (long transferred = 0; transferred < count; ) {
+            transferred += source.transferTo(transferred, count - transferred, target);
+        }
+    }
+
+    /**
+     * Heapsort of the positions by birth date, then position, which is the id order: in place and without
+     * allocating, unlike sorting boxed positions with a comparator.
+     */
+    private static void sortByBirthDate(IntBuffer index, ByteBuffer records, int size) {
+        for (int i = size / 2 - 1; i >= 0; i--) {
+            siftDown(index, records, i, size);
+        }
+        for (int end = size - 1; end > 0; end--) {
+            swap(index, 0, end);
+            siftDown(index, records, 0, end);
+        }
+    }
+
+    private static void siftDown(IntBuffer index, ByteBuffer records, int i, int end) {
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= end) {
+                return;
+            }
+            if (child + 1 < end && bornBefore(records, index.get(child), index.get(child + 1))) {
+                child++;
+            }
+            if (!bornBefore(records, index.get(i), index.get(child))) {
+                return;
+            }
+            swap(index, i, child);
+            i = child;
+        }
+    }
+
+    private static boolean bornBefore(ByteBuffer records, int position, int otherPosition) {
+        int compared = Long.compare(records.getLong(position * RECORD_SIZE + BIRTH_DATE),
+                records.getLong(otherPosition * RECORD_SIZE + BIRTH_DATE));
+        return compared < 0 || compared == 0 && position < otherPosition;
+    }
+
+    private static void swap(IntBuffer index, int i, int j) {
+        int position = index.get(i);
+        index.put(i, index.get(j));
+        index.put(j, position);
+    }
+}
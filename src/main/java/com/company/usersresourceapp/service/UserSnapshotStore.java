@@ -0,0 +1,315 @@
+package com.company.usersresourceapp.service;
+
+import com.company.usersresourceapp.model.User;
+import com.company.usersresourceapp.repository.UserRepository;
+import com.company.usersresourceapp.util.LongHashSet;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Optional read tier serving users by id and by birth date from a memory-mapped {@link UserSnapshot} of the
+ * database, enabled with {@code users.snapshot.enabled}. Heap usage doesn't grow with the number of users:
+ * the snapshot lives in the page cache, only the changes made since it was written are kept on the heap.
+ * <p>
+ * Writes still go to the database, {@link UserService} then records them in the change log of the store,
+ * which takes precedence over the snapshot. Every {@code users.snapshot.merge-interval}, a new snapshot is
+ * written from the database and replaces the current one, and the changes it includes are dropped from the log.
+ * The first one also deletes the snapshots left in the directory by earlier runs.
+ * Until the first snapshot is written at startup, {@link #isServing()} is false and users are read from the database.
+ */
+@Component
+@Profile("!reactive")
+@Slf4j
+public class UserSnapshotStore {
+    private static final Comparator<User> BIRTH_DATE_ORDER = Comparator.comparing(User::getBirthDate)
+            .thenComparing(User::getId);
+
+    private final UserRepository userRepository;
+
+    private final EntityManager entityManager;
+
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Change log: users written since the snapshot by id, with a null user for a deleted one.
+     */
+    private final Map<Long, Change> changes = new ConcurrentHashMap<>();
+
+    private final AtomicLong changeSequence = new AtomicLong();
+
+    private final Object mergeLock = new Object();
+
+    private volatile UserSnapshot snapshot;
+
+    private ScheduledExecutorService merger;
+
+    @Value("${users.snapshot.enabled}")
+    private boolean enabled;
+
+    @Value("${users.snapshot.directory}")
+    private Path directory;
+
+    @Value("${users.snapshot.merge-interval}")
+    private Duration mergeInterval;
+
+    public UserSnapshotStore(UserRepository userRepository, EntityManager entityManager,
+                             PlatformTransactionManager transactionManager) {
+        this.userRepository = userRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        merge();
+        merger = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "users-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        merger.scheduleWithFixedDelay(() -> {
+            try {
+                merge();
+            } catch (RuntimeException e) {
+                log.error("Could not merge the users snapshot, its change log keeps growing", e);
+            }
+        }, mergeInterval.toMillis(), mergeInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (merger != null) {
+            merger.shutdownNow();
+        }
+    }
+
+    /**
+     * @return whether lookups can be served by the store, false until the first snapshot has been written
+     */
+    public boolean isServing() {
+        return snapshot != null;
+    }
+
+    /**
+     * @return whether {@link #searchByBirthDate} can serve a page: the store must be serving,
+     * and the page must be unsorted or sorted by birth date, then id, like the birth date index
+     */
+    public boolean canSearchByBirthDate(Pageable pageable) {
+        if (!isServing() || pageable.isUnpaged()) {
+            return false;
+        }
+        List<Sort.Order> orders = pageable.getSort().toList();
+        return orders.isEmpty() || orders.size() <= 2 && isAscending(orders.get(0), "birthDate")
+                && (orders.size() == 1 || isAscending(orders.get(1), "id"));
+    }
+
+    /**
+     * Finds a user in the change log, or else in the snapshot.
+     * @return a new detached user, or nothing if the user doesn't exist
+     */
+    public Optional<User> findById(Long id) {
+        // The change log is read before the snapshot: a change is only dropped once a snapshot including it is mapped
+        Change change = changes.get(id);
+        if (change != null) {
+            return Optional.ofNullable(change.user()).map(UserSnapshotStore::copy);
+        }
+        UserSnapshot current = snapshot;
+        int position = current.positionOf(id);
+        return position < 0 ? Optional.empty() : Optional.of(current.user(position));
+    }
+
+    /**
+     * Finds a page of users born within the given range, bounds included, ordered by birth date and id,
+     * walking the birth date index of the snapshot along with the changed users in the range.
+     */
+    public Slice<User> searchByBirthDate(Date from, Date to, Pageable pageable) {
+        LongHashSet changedIds = new LongHashSet(changes.size());
+        List<User> changedUsers = new ArrayList<>();
+        changes.forEach((id, change) -> {
+            changedIds.add(id);
+            User user = change.user();
+            if (user != null && !user.getBirthDate().before(from) && !user.getBirthDate().after(to)) {
+                changedUsers.add(copy(user));
+            }
+        });
+        changedUsers.sort(BIRTH_DATE_ORDER);
+        UserSnapshot current = snapshot;
+
+        long skipped = pageable.getOffset();
+        int size = pageable.getPageSize();
+        List<User> content = new ArrayList<>(size + 1);
+        int rank = current.firstBornFrom(from.getTime());
+        int changed = 0;
+        while (content.size() <= size) {
+            while (rank < current.size() && changedIds.contains(current.id(current.positionAt(rank)))) {
+                rank++;
+            }
+            int position = rank < current.size() ? current.positionAt(rank) : -1;
+            boolean inSnapshot = position >= 0 && current.birthDate(position) <= to.getTime();
+            boolean inChanges = changed < changedUsers.size();
+            if (inChanges && (!inSnapshot || bornBefore(changedUsers.get(changed), current, position))) {
+                User user = changedUsers.get(changed++);
+                if (skipped-- <= 0) {
+                    content.add(user);
+                }
+            } else if (inSnapshot) {
+                rank++;
+                if (skipped-- <= 0) {
+                    content.add(current.user(position));
+                }
+            } else {
+                break;
+            }
+        }
+        boolean hasNext = content.size() > size;
+        return new SliceImpl<>(hasNext ? content.subList(0, size) : content, pageable, hasNext);
+    }
+
+    /**
+     * Records a user created or updated in the database.
+     */
+    public void put(User user) {
+        if (enabled) {
+            record(user.getId(), copy(user));
+        }
+    }
+
+    /**
+     * Records a user deleted from the database.
+     */
+    public void remove(Long id) {
+        if (enabled) {
+            record(id, null);
+        }
+    }
+
+    /**
+     * Writes a new snapshot of every user in the database, maps it in place of the current one, then drops
+     * the changes recorded before it was started from the log, as the database already had them.
+     * @return number of users in the new snapshot
+     */
+    public int merge() {
+        synchronized (mergeLock) {
+            long start = System.nanoTime();
+            long lastMergedChange = changeSequence.get();
+            UserSnapshot merged;
+            try {
+                Files.createDirectories(directory);
+                Path file = directory.resolve("users-" + lastMergedChange + "-" + System.currentTimeMillis() + ".snapshot");
+                merged = transactionTemplate.execute(status -> {
+                    try (Stream<User> users = userRepository.streamAllOrderById()) {
+                        Iterator<User> usersById = users.peek(entityManager::detach).iterator();
+                        return UserSnapshot.write(file, usersById);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            UserSnapshot previous = snapshot;
+            snapshot = merged;
+            int mergedChanges = 0;
+            for (Map.Entry<Long, Change> entry : changes.entrySet()) {
+                if (entry.getValue().sequence() <= lastMergedChange && changes.remove(entry.getKey(), entry.getValue())) {
+                    mergedChanges++;
+                }
+            }
+            if (previous != null) {
+                try {
+                    // Still mapped by searches in progress, the mapping outlives the file
+                    Files.deleteIfExists(previous.file());
+                } catch (IOException e) {
+                    log.warn("Could not delete the previous users snapshot {}", previous.file(), e);
+                }
+            } else {
+                deleteStaleSnapshots(merged.file());
+            }
+            log.info("Wrote a snapshot of {} users, merging {} changes, in {} ms", merged.size(), mergedChanges,
+                    Duration.ofNanos(System.nanoTime() - start).toMillis());
+            return merged.size();
+        }
+    }
+
+    /**
+     * Deletes the snapshots left behind by earlier runs, which are never read again.
+     */
+    private void deleteStaleSnapshots(Path current) {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "users-*.snapshot")) {
+            for (Path file : files) {
+                if (!file.equals(current)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Could not delete the stale users snapshots in {}", directory, e);
+        }
+    }
+
+    private void record(Long id, User user) {
+        Change change = new Change(changeSequence.incrementAndGet(), user);
+        // Two concurrent writes of a user may be recorded out of order, the newer version wins
+        changes.merge(id, change, (recorded, recording) ->
+                recorded.user() == null || isNewer(recorded.user(), recording.user()) ? recorded : recording);
+    }
+
+    private static boolean isNewer(User user, User other) {
+        return other != null && user.getVersion() != null && other.getVersion() != null
+                && user.getVersion() > other.getVersion();
+    }
+
+    private static boolean bornBefore(User user, UserSnapshot snapshot, int position) {
+        long birthDate = user.getBirthDate().getTime();
+        long otherBirthDate = snapshot.birthDate(position);
+        return birthDate < otherBirthDate || birthDate == otherBirthDate && user.getId() < snapshot.id(position);
+    }
+
+    private static boolean isAscending(Sort.Order order, String property) {
+        return order.isAscending() && order.getProperty().equals(property);
+    }
+
+    private static User copy(User user) {
+        return new User(user.getId(), user.getEmail(), user.getFirstName(), user.getLastName(),
+                user.getBirthDate() == null ? null : new Date(user.getBirthDate().getTime()),
+                user.getAddress(), user.getPhoneNumber(), user.getVersion());
+    }
+
+    private record Change(long sequence, User user) {
+    }
+}
@@ -0,0 +1,368 @@
+package com.company.usersresourceapp.service;
+
+import com.company.usersresourceapp.model.User;
+import com.company.usersresourceapp.repository.UserRepository;
+import com.company.usersresourceapp.util.LongHashSet;
+import com.company.usersresourceapp.util.LongObjectHashMap;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PrimitiveIterator;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * In-memory inverted index of the emails, first names and last names of the users, for type-ahead search.
+ * <p>
+ * Every term is indexed by its trigrams, plus two grams marking its first one and two characters,
+ * so a query word of three characters or more matches terms containing it and a shorter word matches
+ * terms starting with it. A user matches when each query word matches one of its terms, and ranks higher
+ * for exact matches, then prefix matches, than for matches inside a term.
+ * <p>
+ * The index is built from the database at startup, kept up to date by {@link UserService} on every write,
+ * and can be rebuilt at any time while searches go on, see {@link #rebuild()}.
+ * <p>
+ * Postings are primitive sets of ids, 11 to 21 bytes per id and gram against some 55 in a set of
+ * boxed ids, and the terms are kept by primitive id as well.
+ */
+@Component
+@Profile("!reactive")
+@Slf4j
+public class UserTextIndex {
+    private static final int GRAM_LENGTH = 3;
+
+    private static final char START = '\u0002';
+
+    private static final int EXACT_SCORE = 3;
+
+    private static final int PREFIX_SCORE = 2;
+
+    private static final int INFIX_SCORE = 1;
+
+    private static final Comparator<Match> RANKING = Comparator.comparingInt(Match::score).reversed()
+            .thenComparingLong(Match::id);
+
+    private final UserRepository userRepository;
+
+    private final EntityManager entityManager;
+
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Guards {@link #index}, whose sets are not thread-safe: searches share the read lock, writes and
+     * the switch to a rebuilt index take the write lock.
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Index index = new Index();
+
+    /**
+     * Writes made while a rebuild is running, replayed onto the rebuilt index before it replaces the current one.
+     * Null when no rebuild is running, guarded by the write lock.
+     */
+    private List<Consumer<Index>> pendingWrites;
+
+    @Value("${text.search.budget}")
+    private Duration searchBudget;
+
+    public UserTextIndex(UserRepository userRepository, EntityManager entityManager,
+                         PlatformTransactionManager transactionManager) {
+        this.userRepository = userRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        long start = System.nanoTime();
+        int size = rebuild();
+        log.info("Indexed {} users for text search in {} ms", size, Duration.ofNanos(System.nanoTime() - start).toMillis());
+    }
+
+    /**
+     * Adds a user to the index, or replaces its terms if it is already indexed.
+     */
+    public void put(User user) {
+        Long id = user.getId();
+        String[] terms = terms(user);
+        write(index -> index.put(id, terms));
+    }
+
+    public void remove(Long id) {
+        write(index -> index.remove(id));
+    }
+
+    /**
+     * Finds the best ranked users matching every word of the query. Scoring stops once the search budget
+     * ({@code text.search.budget}) is spent, so a very common short prefix returns the best of the users
+     * scored so far instead of scanning all of them.
+     * @param query words to look up, case insensitive
+     * @param limit maximum number of ids returned
+     * @return ids of the matching users, best match first
+     */
+    public List<Long> search(String query, int limit) {
+        String[] words = words(query);
+        if (words.length == 0) {
+            return List.of();
+        }
+        PriorityQueue<Match> best = new PriorityQueue<>(limit + 1, RANKING.reversed());
+        lock.readLock().lock();
+        try {
+            List<LongHashSet> postings = new ArrayList<>();
+            for (String word : words) {
+                for (String gram : queryGrams(word)) {
+                    LongHashSet ids = index.postings.get(gram);
+                    if (ids == null) {
+                        return List.of();
+                    }
+                    postings.add(ids);
+                }
+            }
+            // Candidates come from the rarest gram, each of them must be in the postings of every other gram
+            postings.sort(Comparator.comparingInt(LongHashSet::size));
+            List<LongHashSet> others = postings.subList(1, postings.size());
+
+            long deadline = System.nanoTime() + searchBudget.toNanos();
+            int scored = 0;
+            for (PrimitiveIterator.OfLong rarest = postings.get(0).iterator(); rarest.hasNext(); ) {
+                long id = rarest.nextLong();
+                if ((++scored & 0xFF) == 0 && System.nanoTime() > deadline) {
+                    break;
+                }
+                if (!containsAll(others, id)) {
+                    continue;
+                }
+                String[] terms = index.terms.get(id);
+                int score = terms == null ? 0 : score(words, terms);
+                if (score > 0) {
+                    best.add(new Match(id, score));
+                    if (best.size() > limit) {
+                        best.poll();
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return best.stream().sorted(RANKING).map(Match::id).toList();
+    }
+
+    /**
+     * Builds a new index from every user in the database, then replaces the current one with it.
+     * Searches keep using the current index meanwhile, and writes made during the rebuild are applied to both.
+     * @return number of indexed users
+     * @throws IllegalStateException if a rebuild is already running
+     */
+    public int rebuild() {
+        lock.writeLock().lock();
+        try {
+            if (pendingWrites != null) {
+                throw new IllegalStateException("The text index is already being rebuilt");
+            }
+            pendingWrites = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        // Only seen by this thread until it replaces the current index
+        Index rebuilt = new Index();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<User> users = userRepository.streamAllOrderById()) {
+                    users.forEach(user -> {
+                        rebuilt.put(user.getId(), terms(user));
+                        entityManager.detach(user);
+                    });
+                }
+            });
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pendingWrites = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+        lock.writeLock().lock();
+        try {
+            // A write made during the rebuild may be newer than what the cursor read, so it is applied last
+            pendingWrites.forEach(write -> write.accept(rebuilt));
+            pendingWrites = null;
+            index = rebuilt;
+            return rebuilt.terms.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return index.terms.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void write(Consumer<Index> write) {
+        lock.writeLock().lock();
+        try {
+            write.accept(index);
+            if (pendingWrites != null) {
+                pendingWrites.add(write);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static boolean containsAll(List<LongHashSet> postings, long id) {
+        for (LongHashSet ids : postings) {
+            if (!ids.contains(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Sums, for each query word, the score of the term it matches best. Zero if a word matches no term,
+     * which happens when the grams of a word are all present in the terms of a user but not next to each other.
+     */
+    private static int score(String[] words, String[] terms) {
+        int total = 0;
+        for (String word : words) {
+            int best = 0;
+            for (String term : terms) {
+                if (term.equals(word)) {
+                    best = EXACT_SCORE;
+                    break;
+                } else if (term.startsWith(word)) {
+                    best = Math.max(best, PREFIX_SCORE);
+                } else if (word.length() >= GRAM_LENGTH && term.contains(word)) {
+                    best = Math.max(best, INFIX_SCORE);
+                }
+            }
+            if (best == 0) {
+                return 0;
+            }
+            total += best;
+        }
+        return total;
+    }
+
+    static String[] terms(User user) {
+        Set<String> terms = new LinkedHashSet<>();
+        if (user.getEmail() != null) {
+            terms.add(normalize(user.getEmail()));
+        }
+        terms.addAll(Arrays.asList(words(user.getFirstName())));
+        terms.addAll(Arrays.asList(words(user.getLastName())));
+        return terms.toArray(String[]::new);
+    }
+
+    private static String[] words(String text) {
+        if (text == null || text.isBlank()) {
+            return new String[0];
+        }
+        return normalize(text).trim().split("\\s+");
+    }
+
+    private static String normalize(String text) {
+        return text.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Grams stored for a term: its two start grams and all its trigrams.
+     */
+    private static Set<String> indexGrams(String term) {
+        String marked = "" + START + START + term;
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= marked.length(); i++) {
+            grams.add(marked.substring(i, i + GRAM_LENGTH));
+        }
+        return grams;
+    }
+
+    /**
+     * Grams looked up for a query word: its trigrams, or the start gram of a shorter word.
+     */
+    private static Set<String> queryGrams(String word) {
+        if (word.length() < GRAM_LENGTH) {
+            return Set.of(("" + START + START + word).substring(word.length() - 1));
+        }
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= word.length(); i++) {
+            grams.add(word.substring(i, i + GRAM_LENGTH));
+        }
+        return grams;
+    }
+
+    private record Match(long id, int score) {
+    }
+
+    private static final class Index {
+        final Map<String, LongHashSet> postings = new HashMap<>();
+
+        final LongObjectHashMap<String[]> terms = new LongObjectHashMap<>();
+
+        void put(long id, String[] newTerms) {
+            String[] oldTerms = terms.put(id, newTerms);
+            Set<String> grams = grams(newTerms);
+            if (oldTerms != null) {
+                for (String gram : grams(oldTerms)) {
+                    if (!grams.contains(gram)) {
+                        removePosting(gram, id);
+                    }
+                }
+            }
+            for (String gram : grams) {
+                postings.computeIfAbsent(gram, key -> new LongHashSet()).add(id);
+            }
+        }
+
+        void remove(long id) {
+            String[] oldTerms = terms.remove(id);
+            if (oldTerms != null) {
+                grams(oldTerms).forEach(gram -> removePosting(gram, id));
+            }
+        }
+
+        private void removePosting(String gram, long id) {
+            postings.computeIfPresent(gram, (key, ids) -> {
+                ids.remove(id);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+
+        private static Set<String> grams(String[] terms) {
+            Set<String> grams = new HashSet<>();
+            for (String term : terms) {
+                grams.addAll(indexGrams(term));
+            }
+            return grams;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.company.usersresourceapp.service;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * {@code /actuator/usertextindex}: size of the {@link UserTextIndex}, and a {@code POST} that rebuilds it
+ * from the database without interrupting searches, e.g. after users were imported straight into the database.
+ * Such imports don't change {@link UserService#getUsersVersion()}, so cached listings stay stale until the next write.
+ * Only exposed over HTTP with the {@code ops} profile, since anyone reaching it could keep rebuilding the index.
+ */
+@Component
+@Profile("!reactive")
+@Endpoint(id = "usertextindex")
+public class UserTextIndexEndpoint {
+    private final UserTextIndex userTextIndex;
+
+    public UserTextIndexEndpoint(UserTextIndex userTextIndex) {
+        this.userTextIndex = userTextIndex;
+    }
+
+    @ReadOperation
+    public Map<String, Object> size() {
+        return Map.of("users", userTextIndex.size());
+    }
+
+    @WriteOperation
+    public Map<String, Object> rebuild() {
+        long start = System.nanoTime();
+        int size = userTextIndex.rebuild();
+        return Map.of("users", size, "millis", Duration.ofNanos(System.nanoTime() - start).toMillis());
+    }
+}
@@ -0,0 +1,303 @@
+package com.company.usersresourceapp.service;
+
+import com.company.usersresourceapp.model.BatchItemResult;
+import com.company.usersresourceapp.model.PendingUserStatus;
+import com.company.usersresourceapp.model.User;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind log of user creations, enabled with {@code users.write-behind.enabled}: a creation is acknowledged
+ * once it is appended and forced to a local file, and a background thread inserts the logged users into the
+ * database in batches of up to {@code users.write-behind.batch-size}, through {@link UserService#createNewUsers}.
+ * <p>
+ * Every creation gets a ticket, its position in the log, to look up its {@link PendingUserStatus}. The ticket
+ * of the last inserted batch is saved as a checkpoint, and the log is emptied once everything in it is inserted.
+ * At startup the creations logged after the checkpoint are inserted again: a user inserted just before a crash
+ * and logged again is then rejected by the unique email, and reported as a conflict.
+ */
+@Component
+@Profile("!reactive")
+@Slf4j
+public class UserWriteBehindLog {
+    private static final String LOG_FILE = "users.log";
+
+    private static final String CHECKPOINT_FILE = "users.checkpoint";
+
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(1);
+
+    private static final Duration STOP_TIMEOUT = Duration.ofSeconds(10);
+
+    private final UserService userService;
+
+    private final ObjectMapper objectMapper;
+
+    private final BlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+
+    /**
+     * Tickets of the creations logged but not inserted yet.
+     */
+    private final Map<Long, Boolean> pending = new ConcurrentHashMap<>();
+
+    /**
+     * Outcomes of the latest insertions, kept for an hour for clients polling their status.
+     */
+    private final Cache<Long, PendingUserStatus> inserted = Caffeine.newBuilder()
+            .maximumSize(100_000)
+            .expireAfterWrite(Duration.ofHours(1))
+            .build();
+
+    /**
+     * Serializes the appends, and the truncation of the log with them.
+     */
+    private final Object appendLock = new Object();
+
+    private FileChannel logChannel;
+
+    private long lastTicket;
+
+    private Thread inserter;
+
+    private volatile boolean running;
+
+    @Value("${users.write-behind.enabled}")
+    private boolean enabled;
+
+    @Value("${users.write-behind.directory}")
+    private Path directory;
+
+    @Value("${users.write-behind.batch-size}")
+    private int batchSize;
+
+    public UserWriteBehindLog(UserService userService, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.userService = userService;
+        this.objectMapper = objectMapper;
+        meterRegistry.gaugeMapSize("users.write.behind.pending", List.of(), pending);
+    }
+
+    /**
+     * Opens the log, queues the creations logged after the checkpoint, then starts inserting them.
+     */
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Files.createDirectories(directory);
+        long checkpoint = readCheckpoint();
+        lastTicket = checkpoint;
+        Path logFile = directory.resolve(LOG_FILE);
+        long complete = 0;
+        if (Files.exists(logFile)) {
+            try (InputStream in = new BufferedInputStream(Files.newInputStream(logFile))) {
+                ByteArrayOutputStream line = new ByteArrayOutputStream();
+                long position = 0;
+                for (int b = in.read(); b != -1; b = in.read()) {
+                    position++;
+                    if (b != '\n') {
+                        line.write(b);
+                        continue;
+                    }
+                    Entry entry = parse(line.toString(StandardCharsets.UTF_8));
+                    line.reset();
+                    if (entry == null) {
+                        break;
+                    }
+                    if (entry.ticket() > checkpoint) {
+                        pending.put(entry.ticket(), true);
+                        queue.add(entry);
+                    }
+                    lastTicket = Math.max(lastTicket, entry.ticket());
+                    complete = position;
+                }
+            }
+            log.info("Replaying {} user creations from the write-behind log", queue.size());
+        }
+        logChannel = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        if (logChannel.size() > complete) {
+            // Torn by a crash in the middle of an append, which was never acknowledged: cut off, so that
+            // the next entry starts on a line of its own
+            log.warn("Dropped an incomplete entry of {} bytes at the end of the write-behind log",
+                    logChannel.size() - complete);
+            logChannel.truncate(complete);
+            logChannel.force(false);
+        }
+        running = true;
+        inserter = new Thread(this::insertLoggedUsers, "users-write-behind");
+        inserter.setDaemon(true);
+        inserter.start();
+    }
+
+    @PreDestroy
+    public void stop() throws IOException, InterruptedException {
+        running = false;
+        if (inserter != null) {
+            // Not interrupted, which would close the log under it: the batch being inserted is finished,
+            // users still in the queue are in the log and are inserted on the next start
+            inserter.join(STOP_TIMEOUT.toMillis());
+        }
+        if (logChannel != null) {
+            logChannel.close();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Appends a valid user to the log and forces it to disk. The user is inserted later.
+     * @return the status of the creation, with its ticket
+     */
+    public PendingUserStatus append(User user) {
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(user);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Could not serialize " + user, e);
+        }
+        long ticket;
+        try {
+            synchronized (appendLock) {
+                ticket = lastTicket + 1;
+                byte[] prefix = (ticket + "\t").getBytes(StandardCharsets.US_ASCII);
+                ByteBuffer line = ByteBuffer.allocate(prefix.length + json.length + 1).put(prefix).put(json).put((byte) '\n');
+                logChannel.write(line.flip());
+                lastTicket = ticket;
+                pending.put(ticket, true);
+                // Queued in ticket order, the checkpoint relies on it
+                queue.add(new Entry(ticket, user));
+            }
+            // Outside the lock, so that concurrent appends are forced together
+            logChannel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not append to the write-behind log", e);
+        }
+        return PendingUserStatus.accepted(ticket);
+    }
+
+    /**
+     * @return status of the creation with the given ticket, or nothing if it was never logged
+     * or inserted too long ago
+     */
+    public Optional<PendingUserStatus> status(long ticket) {
+        PendingUserStatus status = inserted.getIfPresent(ticket);
+        if (status != null) {
+            return Optional.of(status);
+        }
+        return pending.containsKey(ticket) ? Optional.of(PendingUserStatus.accepted(ticket)) : Optional.empty();
+    }
+
+    private void insertLoggedUsers() {
+        List<Entry> batch = new ArrayList<>(batchSize);
+        try {
+            while (running) {
+                Entry first = queue.poll(RETRY_DELAY.toMillis(), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                // Retried until it goes through: the checkpoint must never move past a batch that wasn't inserted
+                while (!insert(batch)) {
+                    if (!running) {
+                        return;
+                    }
+                    Thread.sleep(RETRY_DELAY.toMillis());
+                }
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return whether the batch was inserted and checkpointed
+     */
+    private boolean insert(List<Entry> batch) {
+        try {
+            List<BatchItemResult> results = userService.createNewUsers(batch.stream().map(Entry::user).toList());
+            long checkpoint = batch.get(batch.size() - 1).ticket();
+            writeCheckpoint(checkpoint);
+            synchronized (appendLock) {
+                if (checkpoint == lastTicket) {
+                    // Everything logged is inserted, the log starts over
+                    logChannel.truncate(0);
+                }
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                long ticket = batch.get(i).ticket();
+                inserted.put(ticket, PendingUserStatus.of(ticket, results.get(i)));
+                pending.remove(ticket);
+            }
+            return true;
+        } catch (RuntimeException | IOException e) {
+            log.error("Could not insert {} users from the write-behind log, retrying in {}", batch.size(), RETRY_DELAY, e);
+            return false;
+        }
+    }
+
+    private long readCheckpoint() throws IOException {
+        Path file = directory.resolve(CHECKPOINT_FILE);
+        return Files.exists(file) ? Long.parseLong(Files.readString(file).trim()) : 0;
+    }
+
+    private void writeCheckpoint(long ticket) throws IOException {
+        Path next = directory.resolve(CHECKPOINT_FILE + ".next");
+        try (FileChannel channel = FileChannel.open(next, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(ByteBuffer.wrap(Long.toString(ticket).getBytes(StandardCharsets.US_ASCII)));
+            channel.force(false);
+        }
+        // Replaced at once, a crash leaves either the previous checkpoint or the new one
+        Files.move(next, directory.resolve(CHECKPOINT_FILE), StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private Entry parse(String line) {
+        int tab = line.indexOf('\t');
+        if (tab < 0) {
+            return null;
+        }
+        try {
+            return new Entry(Long.parseLong(line.substring(0, tab)), objectMapper.readValue(line.substring(tab + 1), User.class));
+        } catch (NumberFormatException | JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    private record Entry(long ticket, User user) {
+    }
+}
@@ -2,24 +2,29 @@ package com.company.usersresourceapp.util;
 
 import jakarta.validation.ConstraintValidator;
 import jakarta.validation.ConstraintValidatorContext;
-import lombok.AccessLevel;
-import lombok.Setter;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.util.Calendar;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.Date;
 
 /**
  * A custom validator for the {@link AgeConstraint} annotation, ensuring that
  * a date represents an age greater than specified value.
+ * The latest date of birth that is still valid only changes once a day, so it is computed once
+ * for the current day and every validation is a single comparison.
  */
 @Component
 public class AgeValidator implements ConstraintValidator<AgeConstraint, Date> {
-    @Setter(AccessLevel.PROTECTED)
     @Value("${minimum.user.age}")
     private int minimumAge;
 
+    private Clock clock = Clock.systemDefaultZone();
+
+    private volatile Cutoff cutoff;
+
     /**
      * Validates that the provided date corresponds to an age greater than specified value.
      * @param dateOfBirth   The date of birth to be validated.
@@ -31,21 +36,46 @@ public class AgeValidator implements ConstraintValidator<AgeConstraint, Date> {
         if (dateOfBirth == null) {
             return false;
         }
-        Calendar dob = Calendar.getInstance();
-        dob.setTime(dateOfBirth);
-        Calendar now = Calendar.getInstance();
-
-        int age = now.get(Calendar.YEAR) - dob.get(Calendar.YEAR);
-        if (now.get(Calendar.DAY_OF_YEAR) < dob.get(Calendar.DAY_OF_YEAR)) {
-            // Adjust age if birthdate hasn't occurred yet this year
-            age--;
+        if (dateOfBirth.getTime() < currentCutoff().bornBefore()) {
+            return true;
         }
-        if (age <= minimumAge) {
-            context.disableDefaultConstraintViolation();
-            context.buildConstraintViolationWithTemplate("User age must be greater than " + minimumAge)
-                    .addConstraintViolation();
-            return false;
+        context.disableDefaultConstraintViolation();
+        context.buildConstraintViolationWithTemplate("User age must be greater than " + minimumAge)
+                .addConstraintViolation();
+        return false;
+    }
+
+    protected void setMinimumAge(int minimumAge) {
+        this.minimumAge = minimumAge;
+        this.cutoff = null;
+    }
+
+    protected void setClock(Clock clock) {
+        this.clock = clock;
+        this.cutoff = null;
+    }
+
+    private Cutoff currentCutoff() {
+        Cutoff current = cutoff;
+        if (current == null || clock.millis() >= current.validUntil()) {
+            current = Cutoff.of(LocalDate.now(clock), clock.getZone(), minimumAge);
+            cutoff = current;
+        }
+        return current;
+    }
+
+    /**
+     * Users born before {@code bornBefore} are old enough, as long as today ends before {@code validUntil}.
+     * Both are epoch milliseconds, so checking a {@link Date} allocates nothing.
+     */
+    private record Cutoff(long bornBefore, long validUntil) {
+        static Cutoff of(LocalDate today, ZoneId zone, int minimumAge) {
+            // An age greater than the minimum means at least minimumAge + 1 full years,
+            // LocalDate moves February 29 to February 28 in common years
+            LocalDate latestDateOfBirth = today.minusYears(minimumAge + 1L);
+            return new Cutoff(
+                    latestDateOfBirth.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli(),
+                    today.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli());
         }
-        return true;
     }
 }
@@ -0,0 +1,53 @@
+package com.company.usersresourceapp.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdScalarSerializer;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Date;
+
+/**
+ * Writes and reads dates as the number of days since 1970-01-01, in the time zone of the mapper, as JSON
+ * writes them. The only dates of the users are birth dates, which have no time of day: a binary encoding
+ * then spends one small integer on them instead of a formatted string.
+ */
+public class EpochDayDateModule extends SimpleModule {
+    public EpochDayDateModule() {
+        super(EpochDayDateModule.class.getSimpleName());
+        addSerializer(Date.class, new EpochDaySerializer());
+        addDeserializer(Date.class, new EpochDayDeserializer());
+    }
+
+    static final class EpochDaySerializer extends StdScalarSerializer<Date> {
+        EpochDaySerializer() {
+            super(Date.class);
+        }
+
+        @Override
+        public void serialize(Date date, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeNumber(LocalDate.ofInstant(date.toInstant(), provider.getTimeZone().toZoneId()).toEpochDay());
+        }
+    }
+
+    static final class EpochDayDeserializer extends StdScalarDeserializer<Date> {
+        EpochDayDeserializer() {
+            super(Date.class);
+        }
+
+        @Override
+        public Date deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            if (!parser.hasToken(JsonToken.VALUE_NUMBER_INT)) {
+                return (Date) context.handleUnexpectedToken(Date.class, parser);
+            }
+            LocalDate date = LocalDate.ofEpochDay(parser.getLongValue());
+            return Date.from(date.atStartOfDay(context.getTimeZone().toZoneId()).toInstant());
+        }
+    }
+}
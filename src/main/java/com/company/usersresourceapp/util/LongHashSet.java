@@ -0,0 +1,172 @@
+package com.company.usersresourceapp.util;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+import static com.company.usersresourceapp.util.LongObjectHashMap.EMPTY;
+import static com.company.usersresourceapp.util.LongObjectHashMap.LOAD_FACTOR;
+import static com.company.usersresourceapp.util.LongObjectHashMap.slot;
+import static com.company.usersresourceapp.util.LongObjectHashMap.tableSize;
+
+/**
+ * Set of {@code long} values, laid out like the keys of a {@link LongObjectHashMap}: one array slot per value,
+ * no boxing and no node objects.
+ * <p>
+ * Not thread-safe.
+ */
+public final class LongHashSet {
+    private long[] values;
+
+    private int size;
+
+    private int resizeThreshold;
+
+    private boolean hasEmptyValue;
+
+    public LongHashSet() {
+        this(LongObjectHashMap.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param expectedSize number of values the set can hold without resizing
+     */
+    public LongHashSet(int expectedSize) {
+        allocate(tableSize(expectedSize));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(long value) {
+        if (value == EMPTY) {
+            return hasEmptyValue;
+        }
+        int mask = values.length - 1;
+        for (int slot = slot(value, mask); values[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (values[slot] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return true if the set didn't have the value yet
+     */
+    public boolean add(long value) {
+        if (value == EMPTY) {
+            if (hasEmptyValue) {
+                return false;
+            }
+            hasEmptyValue = true;
+            size++;
+            return true;
+        }
+        int mask = values.length - 1;
+        int slot = slot(value, mask);
+        for (; values[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (values[slot] == value) {
+                return false;
+            }
+        }
+        values[slot] = value;
+        if (++size > resizeThreshold) {
+            resize();
+        }
+        return true;
+    }
+
+    /**
+     * @return true if the set had the value
+     */
+    public boolean remove(long value) {
+        if (value == EMPTY) {
+            if (!hasEmptyValue) {
+                return false;
+            }
+            hasEmptyValue = false;
+            size--;
+            return true;
+        }
+        int mask = values.length - 1;
+        for (int slot = slot(value, mask); values[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (values[slot] == value) {
+                shiftBack(slot, mask);
+                size--;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Iterates over the values in no particular order. The set must not be modified meanwhile.
+     */
+    public PrimitiveIterator.OfLong iterator() {
+        return new PrimitiveIterator.OfLong() {
+            private int next = hasEmptyValue ? -1 : advance(0);
+
+            @Override
+            public boolean hasNext() {
+                return next < values.length;
+            }
+
+            @Override
+            public long nextLong() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                long value = next < 0 ? EMPTY : values[next];
+                next = advance(next + 1);
+                return value;
+            }
+
+            private int advance(int slot) {
+                while (slot < values.length && values[slot] == EMPTY) {
+                    slot++;
+                }
+                return slot;
+            }
+        };
+    }
+
+    /**
+     * Same as {@link LongObjectHashMap}: moves back the following values of the run, so that lookups
+     * never need tombstones.
+     */
+    private void shiftBack(int gap, int mask) {
+        for (int slot = (gap + 1) & mask; values[slot] != EMPTY; slot = (slot + 1) & mask) {
+            int home = slot(values[slot], mask);
+            if (gap <= slot ? home <= gap || home > slot : home <= gap && home > slot) {
+                values[gap] = values[slot];
+                gap = slot;
+            }
+        }
+        values[gap] = EMPTY;
+    }
+
+    private void resize() {
+        long[] oldValues = values;
+        allocate(oldValues.length * 2);
+        int mask = values.length - 1;
+        for (long value : oldValues) {
+            if (value != EMPTY) {
+                int slot = slot(value, mask);
+                while (values[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                values[slot] = value;
+            }
+        }
+    }
+
+    private void allocate(int tableSize) {
+        values = new long[tableSize];
+        resizeThreshold = (int) (tableSize * LOAD_FACTOR);
+    }
+}
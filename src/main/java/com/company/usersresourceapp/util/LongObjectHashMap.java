@@ -0,0 +1,206 @@
+package com.company.usersresourceapp.util;
+
+import java.util.Arrays;
+
+/**
+ * Map from {@code long} keys to objects, with open addressing and linear probing: keys and values live in two
+ * parallel arrays, so an entry costs 16 to 32 bytes of array slots instead of the node and the boxed key of a
+ * {@code HashMap<Long, V>}, about 64 bytes, and a lookup never boxes its key (see {@code LongObjectHashMapBenchmark}).
+ * <p>
+ * Not thread-safe. Null values are not allowed, {@link #get} returns null for a missing key.
+ * @param <V> type of the values
+ */
+public final class LongObjectHashMap<V> {
+    static final int DEFAULT_CAPACITY = 16;
+
+    static final float LOAD_FACTOR = 0.75f;
+
+    /**
+     * Marks an empty slot, an entry with this key is kept aside.
+     */
+    static final long EMPTY = 0L;
+
+    private long[] keys;
+
+    private Object[] values;
+
+    private int size;
+
+    private int resizeThreshold;
+
+    private boolean hasEmptyKey;
+
+    private V emptyKeyValue;
+
+    public LongObjectHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param expectedSize number of entries the map can hold without resizing
+     */
+    public LongObjectHashMap(int expectedSize) {
+        allocate(tableSize(expectedSize));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    /**
+     * @return the value of the key, or null if the map doesn't have it
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        if (key == EMPTY) {
+            return emptyKeyValue;
+        }
+        int mask = keys.length - 1;
+        for (int slot = slot(key, mask); keys[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return (V) values[slot];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the previous value of the key, or null if the map didn't have it
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        if (value == null) {
+            throw new NullPointerException("Null values are not allowed");
+        }
+        if (key == EMPTY) {
+            V previous = emptyKeyValue;
+            emptyKeyValue = value;
+            if (!hasEmptyKey) {
+                hasEmptyKey = true;
+                size++;
+            }
+            return previous;
+        }
+        int mask = keys.length - 1;
+        int slot = slot(key, mask);
+        for (; keys[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                V previous = (V) values[slot];
+                values[slot] = value;
+                return previous;
+            }
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > resizeThreshold) {
+            resize();
+        }
+        return null;
+    }
+
+    /**
+     * @return the removed value, or null if the map didn't have the key
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        if (key == EMPTY) {
+            V previous = emptyKeyValue;
+            if (hasEmptyKey) {
+                hasEmptyKey = false;
+                emptyKeyValue = null;
+                size--;
+            }
+            return previous;
+        }
+        int mask = keys.length - 1;
+        for (int slot = slot(key, mask); keys[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                V previous = (V) values[slot];
+                shiftBack(slot, mask);
+                size--;
+                return previous;
+            }
+        }
+        return null;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        Arrays.fill(values, null);
+        hasEmptyKey = false;
+        emptyKeyValue = null;
+        size = 0;
+    }
+
+    /**
+     * Closes the gap left by a removed entry, moving back the following entries of the run that would
+     * no longer be found from their slot, so that lookups never need tombstones.
+     */
+    private void shiftBack(int gap, int mask) {
+        for (int slot = (gap + 1) & mask; keys[slot] != EMPTY; slot = (slot + 1) & mask) {
+            int home = slot(keys[slot], mask);
+            // Moved back unless its home slot lies cyclically in (gap, slot]
+            if (gap <= slot ? home <= gap || home > slot : home <= gap && home > slot) {
+                keys[gap] = keys[slot];
+                values[gap] = values[slot];
+                gap = slot;
+            }
+        }
+        keys[gap] = EMPTY;
+        values[gap] = null;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(oldKeys.length * 2);
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slot(oldKeys[i], mask);
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int tableSize) {
+        keys = new long[tableSize];
+        values = new Object[tableSize];
+        resizeThreshold = (int) (tableSize * LOAD_FACTOR);
+    }
+
+    /**
+     * Smallest power of two table that holds the expected number of entries under the load factor.
+     */
+    static int tableSize(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Expected size must not be negative: " + expectedSize);
+        }
+        long minimum = Math.max(DEFAULT_CAPACITY, (long) Math.ceil(expectedSize / (double) LOAD_FACTOR));
+        if (minimum > 1 << 30) {
+            throw new IllegalArgumentException("Expected size is too large: " + expectedSize);
+        }
+        return Integer.highestOneBit((int) minimum - 1) << 1;
+    }
+
+    /**
+     * Home slot of a key. Ids are sequential, so their bits are scrambled (a Fibonacci hash)
+     * for consecutive ids not to fill one contiguous run of slots.
+     */
+    static int slot(long key, int mask) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
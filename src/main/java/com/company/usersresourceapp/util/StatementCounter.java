@@ -0,0 +1,100 @@
+package com.company.usersresourceapp.util;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Counts the JDBC statements executed on the current thread, as seen by the datasource proxy
+ * (see {@code DataSourceProxyConfiguration}). A batch counts as one statement, it is one round trip.
+ * <pre>
+ * try (StatementCounter.Counting counting = StatementCounter.start()) {
+ *     userService.deleteUserById(id);
+ *     return counting.statements();
+ * }
+ * </pre>
+ * Counting is bound to the thread that started it and costs nothing on threads that didn't.
+ */
+public final class StatementCounter implements QueryExecutionListener {
+    private static final ThreadLocal<Counting> CURRENT = new ThreadLocal<>();
+
+    /**
+     * Starts counting the statements of the current thread, until the returned counting is closed.
+     * A counting started while another one is open also counts for the other one.
+     */
+    public static Counting start() {
+        Counting counting = new Counting(CURRENT.get());
+        CURRENT.set(counting);
+        return counting;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        Counting counting = CURRENT.get();
+        if (counting != null) {
+            counting.add(queryInfoList.isEmpty() ? "" : queryInfoList.get(0).getQuery(), execInfo.getElapsedTime());
+        }
+    }
+
+    public static final class Counting implements AutoCloseable {
+        private final Counting outer;
+
+        private final Map<String, Integer> executionsBySql = new HashMap<>();
+
+        private int statements;
+
+        private long elapsedMillis;
+
+        private Counting(Counting outer) {
+            this.outer = outer;
+        }
+
+        private void add(String sql, long elapsedMillis) {
+            statements++;
+            this.elapsedMillis += elapsedMillis;
+            executionsBySql.merge(sql, 1, Integer::sum);
+            if (outer != null) {
+                outer.add(sql, elapsedMillis);
+            }
+        }
+
+        public int statements() {
+            return statements;
+        }
+
+        /**
+         * Time spent executing the statements, as measured around each of them by the datasource proxy.
+         */
+        public long elapsedMillis() {
+            return elapsedMillis;
+        }
+
+        /**
+         * The statement executed the most times, with its count: the same query run once per row
+         * of a previous result is the signature of an N+1 problem.
+         * @return the most repeated statement, or null if none was executed
+         */
+        public Map.Entry<String, Integer> mostRepeated() {
+            return executionsBySql.entrySet().stream().max(Map.Entry.comparingByValue()).orElse(null);
+        }
+
+        @Override
+        public void close() {
+            if (CURRENT.get() == this) {
+                if (outer == null) {
+                    CURRENT.remove();
+                } else {
+                    CURRENT.set(outer);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.company.usersresourceapp.util;
+
+import com.company.usersresourceapp.exception.ParametersValidationException;
+import com.company.usersresourceapp.model.User;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.beans.BeanUtils;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.core.NativeDetector;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ReflectionUtils;
+
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Applies partial updates to a {@link User}. The table of setters is built once, at startup,
+ * from the public setters of {@link User} compiled into lambdas, so no reflection happens per update.
+ * A native image can't define the classes of lambdas at runtime, so there the setters are invoked reflectively,
+ * as registered by {@link Hints}.
+ * Values are converted to the type of the property the same way a request body would be.
+ */
+@Component
+@ImportRuntimeHints(UserFieldSetters.Hints.class)
+public class UserFieldSetters {
+    private static final Set<String> NOT_PATCHABLE = Set.of("id", "version");
+
+    private final ObjectMapper objectMapper;
+
+    private final Map<String, FieldSetter> setters;
+
+    public UserFieldSetters(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.setters = buildSetters(objectMapper.getTypeFactory());
+    }
+
+    /**
+     * Sets the given fields on the user, converting every value to the type of its field.
+     * @param user      The user to modify.
+     * @param fields    Field names mapped to their new values.
+     * @throws ParametersValidationException if a field doesn't exist, can't be changed or has a value of a wrong type.
+     */
+    public void apply(User user, Map<?, ?> fields) {
+        fields.forEach((key, value) -> {
+            FieldSetter fieldSetter = setterOf(key);
+            fieldSetter.setter().accept(user, convert(key, value, fieldSetter.type()));
+        });
+    }
+
+    /**
+     * Converts the values of the given fields to the types of the fields, without setting them on any user.
+     * @param fields    Field names mapped to their new values.
+     * @return the field names mapped to the converted values, in the same order.
+     * @throws ParametersValidationException if a field doesn't exist, can't be changed or has a value of a wrong type.
+     */
+    public Map<String, Object> convert(Map<?, ?> fields) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        fields.forEach((key, value) -> values.put((String) key, convert(key, value, setterOf(key).type())));
+        return values;
+    }
+
+    private FieldSetter setterOf(Object key) {
+        FieldSetter fieldSetter = setters.get(key);
+        if (fieldSetter == null) {
+            throw new ParametersValidationException("Field '" + key + "' is not valid.");
+        }
+        return fieldSetter;
+    }
+
+    private Object convert(Object key, Object value, JavaType type) {
+        if (value == null || type.getRawClass().isInstance(value)) {
+            return value;
+        }
+        try {
+            return objectMapper.convertValue(value, type);
+        } catch (IllegalArgumentException e) {
+            throw new ParametersValidationException("Field '" + key + "' has a value of a wrong type.");
+        }
+    }
+
+    private static Map<String, FieldSetter> buildSetters(TypeFactory typeFactory) {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        Map<String, FieldSetter> setters = new HashMap<>();
+        for (PropertyDescriptor property : BeanUtils.getPropertyDescriptors(User.class)) {
+            Method writeMethod = property.getWriteMethod();
+            if (writeMethod == null || NOT_PATCHABLE.contains(property.getName())) {
+                continue;
+            }
+            BiConsumer<User, Object> setter = NativeDetector.inNativeImage()
+                    ? reflectiveSetter(writeMethod)
+                    : toSetter(lookup, writeMethod);
+            setters.put(property.getName(), new FieldSetter(setter,
+                    typeFactory.constructType(writeMethod.getGenericParameterTypes()[0])));
+        }
+        return Map.copyOf(setters);
+    }
+
+    /**
+     * Compiles a setter method into a {@code BiConsumer}, which the JIT can inline like a direct call.
+     */
+    @SuppressWarnings("unchecked")
+    private static BiConsumer<User, Object> toSetter(MethodHandles.Lookup lookup, Method writeMethod) {
+        try {
+            MethodHandle handle = lookup.unreflect(writeMethod);
+            CallSite callSite = LambdaMetafactory.metafactory(lookup, "accept",
+                    MethodType.methodType(BiConsumer.class),
+                    MethodType.methodType(void.class, Object.class, Object.class),
+                    handle,
+                    MethodType.methodType(void.class, User.class, writeMethod.getParameterTypes()[0]));
+            return (BiConsumer<User, Object>) callSite.getTarget().invokeExact();
+        } catch (Throwable e) {
+            throw new IllegalStateException("Could not compile setter " + writeMethod, e);
+        }
+    }
+
+    static BiConsumer<User, Object> reflectiveSetter(Method writeMethod) {
+        return (user, value) -> ReflectionUtils.invokeMethod(writeMethod, user, value);
+    }
+
+    /**
+     * Lets a native image find the properties of {@link User} and invoke their setters.
+     */
+    static class Hints implements RuntimeHintsRegistrar {
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            hints.reflection().registerType(User.class, MemberCategory.INVOKE_PUBLIC_METHODS);
+        }
+    }
+
+    private record FieldSetter(BiConsumer<User, Object> setter, JavaType type) {
+    }
+}
@@ -0,0 +1,17 @@
+create sequence user_seq start with 1 increment by 50;
+
+create table user (
+    id bigint not null,
+    email varchar(255),
+    first_name varchar(255),
+    last_name varchar(255),
+    birth_date timestamp(6) not null,
+    address varchar(255),
+    phone_number varchar(255),
+    primary key (id)
+);
+
+-- Serves birth date range searches in (birth_date, id) order without sorting
+create index idx_user_birth_date on user (birth_date, id);
+
+create unique index ux_user_email on user (email);
@@ -0,0 +1,3 @@
+-- Lets the reactive stack insert users without an id. Hibernate keeps allocating blocks of ids from the same
+-- sequence, an id taken here is the upper bound of a block that Hibernate never uses
+alter table user alter column id set default next value for user_seq;
@@ -0,0 +1,2 @@
+-- Optimistic locking, the version is also the ETag of a user
+alter table user add column version bigint default 0 not null;
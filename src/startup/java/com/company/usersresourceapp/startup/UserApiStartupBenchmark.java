@@ -0,0 +1,216 @@
+package com.company.usersresourceapp.startup;
+
+import com.company.usersresourceapp.UsersResourceAppApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cold start of the production build: the time from launching a JVM on it until its first successful
+ * {@code GET /users/{id}}, the moment a new instance starts to be useful when scaling out.
+ * <p>
+ * A mode combines startup features with {@code +}: {@code aot} runs the Spring AOT generated bean definitions,
+ * {@code lazy} the {@code lazy} profile, {@code cds} an AppCDS archive of the classes the mode loads, dumped
+ * by a training run of the same mode beforehand; {@code default} is none of them. Every launch of every mode
+ * reads the same user from an H2 database file seeded once, so that the schema exists like it would in production.
+ * <p>
+ * Settings (system properties): {@code startup.classpath} (the plain jar and its dependencies, built by the
+ * {@code prod} Maven profile), {@code startup.modes} (default {@code default,aot,lazy,cds,aot+lazy+cds})
+ * and {@code startup.runs} per mode (default 5). Results are printed and written to
+ * {@code target/startup-result.json}.
+ */
+public class UserApiStartupBenchmark {
+    private static final Set<String> FEATURES = Set.of("default", "aot", "lazy", "cds");
+
+    private static final Duration TIMEOUT = Duration.ofMinutes(2);
+
+    private static final Path WORK_DIRECTORY = Path.of("target", "startup");
+
+    private static final HttpClient HTTP_CLIENT = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(1))
+            .build();
+
+    public static void main(String[] args) throws Exception {
+        String classpath = System.getProperty("startup.classpath");
+        if (classpath == null) {
+            throw new IllegalArgumentException("startup.classpath is required, run with: mvn -Pprod,startup verify");
+        }
+        List<String> modes = List.of(System.getProperty("startup.modes", "default,aot,lazy,cds,aot+lazy+cds").split(","));
+        int runs = Integer.getInteger("startup.runs", 5);
+        for (String mode : modes) {
+            for (String feature : features(mode)) {
+                if (!FEATURES.contains(feature)) {
+                    throw new IllegalArgumentException("Unknown startup feature '" + feature + "' in mode " + mode);
+                }
+            }
+        }
+
+        Files.createDirectories(WORK_DIRECTORY);
+        Path database = WORK_DIRECTORY.resolve("users").toAbsolutePath();
+        Files.deleteIfExists(database.resolveSibling("users.mv.db"));
+        long id = seed(classpath, database);
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (String mode : modes) {
+            Set<String> features = features(mode);
+            Path archive = WORK_DIRECTORY.resolve(mode + ".jsa").toAbsolutePath();
+            if (features.contains("cds")) {
+                // Training run: the classes loaded until the first response are dumped when the JVM exits
+                Files.deleteIfExists(archive);
+                stop(awaitFirstUser(launch(classpath, database, features, "-XX:ArchiveClassesAtExit=" + archive,
+                        mode + "-training"), id));
+                if (!Files.exists(archive)) {
+                    throw new IllegalStateException("The training run of " + mode + " dumped no archive");
+                }
+            }
+            long[] millis = new long[runs];
+            for (int run = 0; run < runs; run++) {
+                String cdsOption = features.contains("cds") ? "-XX:SharedArchiveFile=" + archive : "-Xshare:auto";
+                long start = System.nanoTime();
+                Instance instance = awaitFirstUser(launch(classpath, database, features, cdsOption, mode), id);
+                millis[run] = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                stop(instance);
+            }
+            Arrays.sort(millis);
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("mode", mode);
+            result.put("runs", runs);
+            result.put("minMillis", millis[0]);
+            result.put("medianMillis", millis[runs / 2]);
+            result.put("maxMillis", millis[runs - 1]);
+            results.add(result);
+            System.out.printf("%-14s first GET /users/{id} after: min %6d ms  median %6d ms  max %6d ms%n",
+                    mode, millis[0], millis[runs / 2], millis[runs - 1]);
+        }
+        File output = new File("target/startup-result.json");
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(output, results);
+        System.out.println("Results written to " + output.getAbsolutePath());
+    }
+
+    private static Set<String> features(String mode) {
+        return Set.of(mode.trim().split("\\+"));
+    }
+
+    /**
+     * Creates the schema and the user read by every launch, and returns its id.
+     */
+    private static long seed(String classpath, Path database) throws IOException, InterruptedException {
+        Instance instance = launch(classpath, database, Set.of("default"), "-Xshare:auto", "seed");
+        try {
+            URI users = instance.uri().resolve("/users");
+            long deadline = System.nanoTime() + TIMEOUT.toNanos();
+            while (true) {
+                HttpResponse<String> response = send(HttpRequest.newBuilder(users)
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(
+                                "{\"email\":\"startup@example.com\",\"firstName\":\"John\",\"lastName\":\"Doe\",\"birthDate\":\"1990-01-01\"}"))
+                        .build(), instance, deadline);
+                if (response != null) {
+                    if (response.statusCode() != 201) {
+                        throw new IllegalStateException("Could not seed the user: " + response.body());
+                    }
+                    return new ObjectMapper().readTree(response.body()).get("id").asLong();
+                }
+            }
+        } finally {
+            stop(instance);
+        }
+    }
+
+    private static Instance launch(String classpath, Path database, Set<String> features, String cdsOption,
+                                   String logName) throws IOException {
+        int port = freePort();
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.add(cdsOption);
+        if (features.contains("aot")) {
+            command.add("-Dspring.aot.enabled=true");
+        }
+        command.add("-cp");
+        command.add(classpath);
+        command.add(UsersResourceAppApplication.class.getName());
+        command.add("--server.port=" + port);
+        command.add("--spring.datasource.url=jdbc:h2:file:" + database + ";NON_KEYWORDS=user");
+        if (features.contains("lazy")) {
+            command.add("--spring.profiles.active=lazy");
+        }
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(WORK_DIRECTORY.resolve(logName + ".log").toFile())
+                .start();
+        return new Instance(process, URI.create("http://localhost:" + port));
+    }
+
+    private static Instance awaitFirstUser(Instance instance, long id) throws IOException, InterruptedException {
+        URI user = instance.uri().resolve("/users/" + id);
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (true) {
+            HttpResponse<String> response = send(HttpRequest.newBuilder(user).GET().build(), instance, deadline);
+            if (response != null) {
+                if (response.statusCode() != 200) {
+                    throw new IllegalStateException("GET " + user + " answered " + response.statusCode());
+                }
+                return instance;
+            }
+        }
+    }
+
+    /**
+     * @return the response, or null if the application doesn't accept connections yet
+     */
+    private static HttpResponse<String> send(HttpRequest request, Instance instance, long deadline)
+            throws IOException, InterruptedException {
+        try {
+            return HTTP_CLIENT.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (ConnectException e) {
+            if (!instance.process().isAlive()) {
+                throw new IllegalStateException("The application exited with " + instance.process().exitValue()
+                        + ", see the logs in " + WORK_DIRECTORY.toAbsolutePath());
+            }
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException("The application did not start within " + TIMEOUT);
+            }
+            Thread.sleep(5);
+            return null;
+        }
+    }
+
+    /**
+     * Stops the application like the orchestrator would, with SIGTERM, and waits for its JVM to exit.
+     */
+    private static void stop(Instance instance) throws InterruptedException {
+        Process process = instance.process();
+        process.destroy();
+        if (!process.waitFor(TIMEOUT.toSeconds(), TimeUnit.SECONDS)) {
+            process.destroyForcibly().waitFor();
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private record Instance(Process process, URI uri) {
+    }
+}
@@ -0,0 +1,25 @@
+package com.company.usersresourceapp.config;
+
+import net.ttddyy.dsproxy.proxy.ProxyJdbcObject;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DataSourceProxyConfigurationTest {
+    @Test
+    public void testJdbcProxiesAreRegisteredForNativeImages() {
+        RuntimeHints hints = new RuntimeHints();
+        new DataSourceProxyConfiguration.JdbcProxyHints().registerHints(hints, getClass().getClassLoader());
+
+        // In the order the data source proxy lists the interfaces, which a native image requires
+        assertTrue(RuntimeHintsPredicates.proxies().forInterfaces(ProxyJdbcObject.class, Connection.class).test(hints));
+        assertTrue(RuntimeHintsPredicates.proxies().forInterfaces(ProxyJdbcObject.class, PreparedStatement.class).test(hints));
+        assertTrue(RuntimeHintsPredicates.proxies().forInterfaces(ProxyJdbcObject.class, ResultSet.class).test(hints));
+    }
+}
@@ -0,0 +1,35 @@
+package com.company.usersresourceapp.config;
+
+import com.company.usersresourceapp.controller.UserController;
+import com.company.usersresourceapp.service.UserService;
+import com.company.usersresourceapp.service.UserTextIndexEndpoint;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:lazy-test;NON_KEYWORDS=user")
+@ActiveProfiles("lazy")
+public class LazyInitializationConfigurationTest {
+    @Autowired
+    private ConfigurableApplicationContext context;
+
+    @Test
+    public void testOnlyBeansOffTheRequestPathAreLazy() {
+        assertTrue(isCreated(UserController.class));
+        assertTrue(isCreated(UserService.class));
+        assertFalse(isCreated(UserTextIndexEndpoint.class));
+
+        context.getBean(UserTextIndexEndpoint.class);
+
+        assertTrue(isCreated(UserTextIndexEndpoint.class));
+    }
+
+    private boolean isCreated(Class<?> type) {
+        String[] names = context.getBeanNamesForType(type, false, false);
+        return names.length == 1 && context.getBeanFactory().containsSingleton(names[0]);
+    }
+}
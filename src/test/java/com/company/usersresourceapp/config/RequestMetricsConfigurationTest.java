@@ -0,0 +1,63 @@
+package com.company.usersresourceapp.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:metrics-test;NON_KEYWORDS=user",
+        "request.warn.statements=1"
+})
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@ExtendWith(OutputCaptureExtension.class)
+public class RequestMetricsConfigurationTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void testPrometheusEndpointExposesRequestMetrics() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"metrics@example.com\",\"firstName\":\"John\",\"lastName\":\"Doe\",\"birthDate\":\"1990-01-01\"}"))
+                .andExpect(status().isCreated());
+        mockMvc.perform(MockMvcRequestBuilders.get("/users/{id}", Long.MAX_VALUE))
+                .andExpect(status().isNotFound());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString(
+                        "http_server_requests_seconds{error=\"none\",exception=\"none\",method=\"POST\",outcome=\"SUCCESS\",status=\"201\",uri=\"/users\",quantile=\"0.999\",}")))
+                .andExpect(content().string(containsString(
+                        "users_request_statements_count{method=\"GET\",uri=\"/users/{id}\",} 1.0")))
+                .andExpect(content().string(containsString(
+                        "users_request_statements_sum{method=\"GET\",uri=\"/users/{id}\",} 1.0")))
+                .andExpect(content().string(containsString(
+                        "users_errors_total{error=\"Resource not found\",status=\"404\",uri=\"/users/{id}\",} 1.0")))
+                .andExpect(content().string(containsString(
+                        "spring_data_repository_invocations_seconds_bucket{exception=\"None\",method=\"findById\",repository=\"UserRepository\",state=\"SUCCESS\"")));
+    }
+
+    @Test
+    public void testRequestRunningTooManyStatementsIsLogged(CapturedOutput output) throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"warning@example.com\",\"firstName\":\"John\",\"lastName\":\"Doe\",\"birthDate\":\"1990-01-01\"}"))
+                .andExpect(status().isCreated());
+
+        assertTrue(output.getOut().contains("POST /users (/users) ran 2 statements"), output.getOut());
+    }
+}
@@ -0,0 +1,140 @@
+package com.company.usersresourceapp.config;
+
+import com.company.usersresourceapp.model.User;
+import com.company.usersresourceapp.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.zip.GZIPInputStream;
+
+import static com.company.usersresourceapp.util.StatementAssertions.assertMaxStatements;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:response-cache-test;NON_KEYWORDS=user")
+@AutoConfigureMockMvc
+public class ResponseCacheConfigurationTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserService userService;
+
+    private String email;
+
+    @BeforeEach
+    void setUp() {
+        email = "cached" + System.nanoTime() + "@example.com";
+        userService.createNewUser(new User(email, "John", "Doe", new Date(0)));
+    }
+
+    @Test
+    public void testUnchangedListingIsServedWithoutQuery() throws Exception {
+        MvcResult first = perform(listing());
+        MvcResult second = assertMaxStatements(0, () -> perform(listing()));
+
+        assertArrayEquals(first.getResponse().getContentAsByteArray(), second.getResponse().getContentAsByteArray());
+        assertEquals(first.getResponse().getHeader("ETag"), second.getResponse().getHeader("ETag"));
+        assertEquals("application/hal+json", second.getResponse().getContentType());
+    }
+
+    @Test
+    public void testListingIsRenderedAgainAfterWrite() throws Exception {
+        perform(listing());
+        String newEmail = "new" + email;
+        userService.createNewUser(new User(newEmail, "Jane", "Doe", new Date(0)));
+
+        mockMvc.perform(listing())
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"" + userService.getUsersVersion() + "\""))
+                .andExpect(content().string(containsString(newEmail)));
+    }
+
+    @Test
+    public void testGzipIsCachedCompressed() throws Exception {
+        String plain = perform(listing()).getResponse().getContentAsString();
+
+        for (int i = 0; i < 2; i++) {
+            MvcResult result = mockMvc.perform(listing().header("Accept-Encoding", "br, gzip;q=0.8"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("Content-Encoding", "gzip"))
+                    .andExpect(header().string("ETag", "\"" + userService.getUsersVersion() + "-gzip\""))
+                    .andReturn();
+            byte[] body = result.getResponse().getContentAsByteArray();
+            assertEquals(body.length, result.getResponse().getContentLength());
+            try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(body))) {
+                assertEquals(plain, new String(gzip.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    @Test
+    public void testRefusedGzipIsNotUsed() throws Exception {
+        mockMvc.perform(listing().header("Accept-Encoding", "gzip;q=0"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andExpect(content().string(containsString(email)));
+    }
+
+    @Test
+    public void testResponsesAreCachedPerAcceptHeader() throws Exception {
+        perform(listing());
+
+        mockMvc.perform(listing().accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andExpect(header().string("ETag", "\"" + userService.getUsersVersion() + "-cbor\""));
+        mockMvc.perform(listing())
+                .andExpect(content().contentType("application/hal+json"))
+                .andExpect(header().stringValues("Vary", "Accept-Encoding", "Accept"));
+    }
+
+    @Test
+    public void testCachedListingAnswersNotModified() throws Exception {
+        String eTag = perform(listing()).getResponse().getHeader("ETag");
+
+        assertMaxStatements(0, () -> perform(listing().header("If-None-Match", eTag), 304));
+    }
+
+    @Test
+    public void testGzipListingAnswersNotModifiedToItsOwnTag() throws Exception {
+        String eTag = perform(listing().header("Accept-Encoding", "gzip")).getResponse().getHeader("ETag");
+        String identityETag = "\"" + userService.getUsersVersion() + "\"";
+
+        mockMvc.perform(listing().header("Accept-Encoding", "gzip").header("If-None-Match", eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", eTag));
+        mockMvc.perform(listing().header("If-None-Match", eTag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", identityETag));
+    }
+
+    private static MockHttpServletRequestBuilder listing() {
+        return MockMvcRequestBuilders.get("/users").param("limit", "100");
+    }
+
+    private MvcResult perform(MockHttpServletRequestBuilder request) {
+        return perform(request, 200);
+    }
+
+    private MvcResult perform(MockHttpServletRequestBuilder request, int expectedStatus) {
+        try {
+            return mockMvc.perform(request).andExpect(status().is(expectedStatus)).andReturn();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
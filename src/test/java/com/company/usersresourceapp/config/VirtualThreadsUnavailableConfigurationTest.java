@@ -0,0 +1,30 @@
+package com.company.usersresourceapp.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.util.ClassUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VirtualThreadsUnavailableConfigurationTest {
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withUserConfiguration(VirtualThreadsUnavailableConfiguration.class);
+
+    @Test
+    public void testPlatformModeStarts() {
+        contextRunner.withPropertyValues("execution.mode=platform")
+                .run(context -> assertNull(context.getStartupFailure()));
+    }
+
+    @Test
+    public void testVirtualModeFailsWithoutVirtualThreadsConfiguration() {
+        boolean built = ClassUtils.isPresent("com.company.usersresourceapp.config.VirtualThreadsConfiguration", null);
+        contextRunner.withPropertyValues("execution.mode=virtual").run(context -> {
+            if (built) {
+                assertNull(context.getStartupFailure());
+            } else {
+                assertNotNull(context.getStartupFailure());
+            }
+        });
+    }
+}
@@ -0,0 +1,263 @@
+package com.company.usersresourceapp.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.hateoas.MediaTypes;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.r2dbc.url=r2dbc:h2:mem:///reactive-test?options=NON_KEYWORDS=user;DB_CLOSE_DELAY=-1",
+        "spring.flyway.url=jdbc:h2:mem:reactive-test;NON_KEYWORDS=user;DB_CLOSE_DELAY=-1"
+})
+@ActiveProfiles("reactive")
+public class ReactiveUserControllerTest {
+    private static final AtomicInteger EMAIL_SEQUENCE = new AtomicInteger();
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Test
+    public void testCreateAndGetUser() {
+        String location = webTestClient.post().uri("/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(newUser("1990-01-01"))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody()
+                .jsonPath("$.firstName").isEqualTo("John")
+                .jsonPath("$._links.users.href").value(href -> assertTrue(((String) href).matches("http://localhost:\\d+/users")))
+                .returnResult().getResponseHeaders().getLocation().toString();
+
+        webTestClient.get().uri(location)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.lastName").isEqualTo("Doe")
+                .jsonPath("$._links.self.href").isEqualTo(location);
+    }
+
+    @Test
+    public void testCreateUserTooYoung() {
+        webTestClient.post().uri("/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(newUser("2020-01-01"))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Arguments is not valid")
+                .jsonPath("$.invalidParams[0]").isEqualTo("User age must be greater than 18")
+                .jsonPath("$.instance").isEqualTo("/users");
+    }
+
+    @Test
+    public void testCreateUserWithDuplicateEmail() {
+        Map<String, Object> user = newUser("1990-01-01");
+        webTestClient.post().uri("/users").bodyValue(user).exchange().expectStatus().isCreated();
+
+        webTestClient.post().uri("/users").bodyValue(user)
+                .exchange()
+                .expectStatus().isEqualTo(409)
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Conflict with an existing resource")
+                .jsonPath("$.detail").isEqualTo("A user with this email already exists");
+    }
+
+    @Test
+    public void testGetUserNotFound() {
+        webTestClient.get().uri("/users/{id}", Long.MAX_VALUE)
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Resource not found")
+                .jsonPath("$.instance").isEqualTo("/users/" + Long.MAX_VALUE);
+    }
+
+    @Test
+    public void testPatchAndDeleteUser() {
+        String location = webTestClient.post().uri("/users").bodyValue(newUser("1990-01-01"))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody().returnResult().getResponseHeaders().getLocation().toString();
+
+        webTestClient.patch().uri(location).bodyValue(Map.of("firstName", "Jane"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.firstName").isEqualTo("Jane");
+        webTestClient.patch().uri(location).bodyValue(Map.of("birthDate", "2020-01-01"))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.message").isEqualTo("Constraint violation");
+
+        webTestClient.delete().uri(location).exchange().expectStatus().isAccepted();
+        webTestClient.get().uri(location).exchange().expectStatus().isNotFound();
+    }
+
+    @Test
+    public void testConditionalRequests() {
+        String location = webTestClient.post().uri("/users").bodyValue(newUser("1990-01-01"))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectHeader().valueEquals("ETag", "\"0\"")
+                .expectBody().returnResult().getResponseHeaders().getLocation().toString();
+
+        webTestClient.get().uri(location).header("If-None-Match", "\"0\"")
+                .exchange()
+                .expectStatus().isNotModified();
+        webTestClient.patch().uri(location).header("If-Match", "\"0\"").bodyValue(Map.of("firstName", "Jane"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("ETag", "\"1\"");
+        webTestClient.patch().uri(location).header("If-Match", "\"0\"").bodyValue(Map.of("firstName", "Lost"))
+                .exchange()
+                .expectStatus().isEqualTo(412)
+                .expectBody().jsonPath("$.message").isEqualTo("Precondition failed");
+        webTestClient.patch().uri(location).header("If-Match", "\"7\", \"1\"").bodyValue(Map.of("lastName", "Doe"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("ETag", "\"2\"");
+        webTestClient.get().uri(location)
+                .exchange()
+                .expectBody().jsonPath("$.firstName").isEqualTo("Jane");
+    }
+
+    @Test
+    public void testConditionalGetAllUsers() {
+        String eTag = webTestClient.get().uri("/users")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().returnResult().getResponseHeaders().getETag();
+
+        webTestClient.get().uri("/users").header("If-None-Match", eTag)
+                .exchange()
+                .expectStatus().isNotModified();
+        createUsers(1);
+        webTestClient.get().uri("/users").header("If-None-Match", eTag)
+                .exchange()
+                .expectStatus().isOk();
+    }
+
+    @Test
+    public void testGetAllUsersPages() {
+        createUsers(3);
+
+        webTestClient.get().uri("/users?limit=2")
+                .accept(MediaTypes.HAL_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$._embedded.userList.length()").isEqualTo(2)
+                .jsonPath("$._links.next.href").value(href -> assertTrue(((String) href).contains("after=")));
+    }
+
+    @Test
+    public void testGetAllUsersStreamsNdjson() {
+        createUsers(3);
+
+        List<Map> users = webTestClient.get().uri("/users?limit=3")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(Map.class).getResponseBody()
+                .collectList().block();
+
+        assertEquals(3, users.size());
+    }
+
+    @Test
+    public void testGetAllUsersWithInvalidLimit() {
+        webTestClient.get().uri("/users?limit=0")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.message").isEqualTo("Constraint violation");
+    }
+
+    @Test
+    public void testExportUsers() {
+        createUsers(2);
+
+        webTestClient.get().uri("/users/export")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(Map.class).getResponseBody()
+                .collectList()
+                .doOnNext(users -> assertTrue(users.size() >= 2))
+                .block();
+    }
+
+    @Test
+    public void testCreateUsersBatchFromNdjson() {
+        String body = toJson(newUser("1990-01-01")) + "\n" + toJson(newUser("2020-01-01")) + "\n";
+
+        webTestClient.post().uri("/users/batch")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .bodyValue(body)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$[0].status").isEqualTo(201)
+                .jsonPath("$[1].status").isEqualTo(400)
+                .jsonPath("$[1].errors[0]").isEqualTo("User age must be greater than 18");
+    }
+
+    @Test
+    public void testCreateUsersBatchWithDuplicateEmail() {
+        String user = toJson(newUser("1990-01-01"));
+
+        webTestClient.post().uri("/users/batch")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .bodyValue(user + "\n" + user + "\n")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$[0].status").isEqualTo(201)
+                .jsonPath("$[1].status").isEqualTo(409)
+                .jsonPath("$[1].errors[0]").isEqualTo("A user with this email already exists");
+    }
+
+    @Test
+    public void testSearchUsersByBirthDateRange() {
+        createUsers(3);
+
+        webTestClient.get().uri("/users/search?from=1980-01-01&to=2000-01-01&size=2")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$._embedded.userList.length()").isEqualTo(2)
+                .jsonPath("$._links.next.href").value(href -> assertTrue(((String) href).contains("page=1")));
+    }
+
+    @Test
+    public void testSearchUsersByUnknownProperty() {
+        webTestClient.get().uri("/users/search?from=1980-01-01&to=2000-01-01&sort=unknown")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.message").isEqualTo("Bad user request");
+    }
+
+    private void createUsers(int count) {
+        for (int i = 0; i < count; i++) {
+            webTestClient.post().uri("/users").bodyValue(newUser("1990-01-01")).exchange().expectStatus().isCreated();
+        }
+    }
+
+    private static Map<String, Object> newUser(String birthDate) {
+        return Map.of("email", "reactive" + EMAIL_SEQUENCE.incrementAndGet() + "@example.com",
+                "firstName", "John", "lastName", "Doe", "birthDate", birthDate);
+    }
+
+    private static String toJson(Map<String, Object> user) {
+        return "{\"email\":\"" + user.get("email") + "\",\"firstName\":\"John\",\"lastName\":\"Doe\",\"birthDate\":\""
+                + user.get("birthDate") + "\"}";
+    }
+}
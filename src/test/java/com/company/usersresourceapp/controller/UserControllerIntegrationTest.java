@@ -0,0 +1,93 @@
+package com.company.usersresourceapp.controller;
+
+import com.company.usersresourceapp.service.UserService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.Map;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.startsWith;
+
+/**
+ * The servlet stack end to end, without any mock, so that it can also run as a native test
+ * ({@code mvn -PnativeTest test}, which only runs the tests tagged {@code native}): the partial update goes through
+ * the setters of {@code UserFieldSetters}, and every statement through the datasource proxy.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.datasource.url=jdbc:h2:mem:integration-test;NON_KEYWORDS=user")
+@AutoConfigureObservability
+@Tag("native")
+public class UserControllerIntegrationTest {
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Test
+    public void testCreateUpdateAndGetUser() {
+        String location = webTestClient.post().uri("/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("email", "native@example.com", "firstName", "John", "lastName", "Doe",
+                        "birthDate", "1990-01-01"))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectHeader().valueEquals("ETag", "\"0\"")
+                .expectBody().returnResult().getResponseHeaders().getLocation().toString();
+
+        webTestClient.patch().uri(location)
+                .header("If-Match", "\"0\"")
+                .bodyValue(Map.of("phoneNumber", "1234567890", "birthDate", "1991-02-03"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("ETag", "\"1\"");
+
+        webTestClient.get().uri(location)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.phoneNumber").isEqualTo("1234567890")
+                .jsonPath("$.birthDate").value(startsWith("1991-02-03"))
+                .jsonPath("$._links.self.href").isEqualTo(location);
+
+        webTestClient.get().uri("/actuator/prometheus")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class)
+                .value(containsString("users_request_statements_count{method=\"PATCH\",uri=\"/users/{id}\",} 1.0"));
+    }
+
+    @Test
+    public void testUpdateUserMatchingOneOfSeveralTags() {
+        String location = webTestClient.post().uri("/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("email", "tags@example.com", "firstName", "John", "lastName", "Doe",
+                        "birthDate", "1990-01-01"))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody().returnResult().getResponseHeaders().getLocation().toString();
+        // Not cached, as after an eviction or on another instance
+        cacheManager.getCache(UserService.USERS_CACHE).clear();
+
+        webTestClient.put().uri(location)
+                .header("If-Match", "\"0\", \"1\"")
+                .bodyValue(Map.of("email", "tags@example.com", "firstName", "Jane", "lastName", "Doe",
+                        "birthDate", "1990-01-01"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("ETag", "\"1\"")
+                .expectBody().jsonPath("$.firstName").isEqualTo("Jane");
+
+        webTestClient.get().uri(location)
+                .exchange()
+                .expectHeader().valueEquals("ETag", "\"1\"")
+                .expectBody().jsonPath("$.firstName").isEqualTo("Jane");
+    }
+}
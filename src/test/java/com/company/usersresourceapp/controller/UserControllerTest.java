@@ -1,32 +1,57 @@
 package com.company.usersresourceapp.controller;
 
+import com.company.usersresourceapp.exception.PreconditionFailedException;
+import com.company.usersresourceapp.model.BatchItemResult;
+import com.company.usersresourceapp.model.PendingUserStatus;
+import com.company.usersresourceapp.exception.ParametersValidationException;
 import com.company.usersresourceapp.model.User;
+import com.company.usersresourceapp.model.UserFields;
 import com.company.usersresourceapp.service.UserService;
+import com.company.usersresourceapp.service.UserWriteBehindLog;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.MediaTypes;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import static org.mockito.Mockito.*;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
-@SpringBootTest
+// The version of the users collection of the mocked service never changes, responses must not be cached
+@SpringBootTest(properties = "users.response-cache.enabled=false")
 @AutoConfigureMockMvc
 public class UserControllerTest {
     @Autowired
@@ -38,6 +63,9 @@ public class UserControllerTest {
     @MockBean
     private UserModelAssembler userModelAssembler;
 
+    @MockBean
+    private UserWriteBehindLog userWriteBehindLog;
+
     private User testUser;
 
     @BeforeEach
@@ -55,7 +83,7 @@ public class UserControllerTest {
                 .thenAnswer(invocation -> {
                     User user = invocation.getArgument(0);
                     EntityModel<User> entityModel = EntityModel.of(user);
-                    entityModel.add(linkTo(methodOn(UserController.class).getUser(user.getId())).withSelfRel());
+                    entityModel.add(linkTo(methodOn(UserController.class).getUser(user.getId(), null)).withSelfRel());
                     return entityModel;
                 });
 
@@ -74,6 +102,135 @@ public class UserControllerTest {
         verify(userModelAssembler, times(1)).toModel(testUser);
     }
 
+    @Test
+    public void testCreateUserFromCbor() throws Exception {
+        when(userService.createNewUser(any(User.class))).thenReturn(testUser);
+        when(userModelAssembler.toModel(testUser)).thenReturn(EntityModel.of(testUser,
+                linkTo(methodOn(UserController.class).getUser(testUser.getId(), null)).withSelfRel()));
+
+        byte[] body = new CBORMapper().writeValueAsBytes(Map.of("email", "test@example.com", "firstName", "John",
+                "lastName", "Doe", "birthDate", LocalDate.of(1990, 1, 1).toEpochDay()));
+        mockMvc.perform(MockMvcRequestBuilders
+                        .post("/users")
+                        .contentType(MediaType.APPLICATION_CBOR)
+                        .accept(MediaType.APPLICATION_CBOR)
+                        .content(body))
+                .andExpect(status().isCreated())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR));
+
+        verify(userService, times(1)).createNewUser(argThat(user -> "test@example.com".equals(user.getEmail())
+                && user.getBirthDate().toInstant().equals(Instant.parse("1990-01-01T00:00:00Z"))));
+    }
+
+    @Test
+    public void testCreateUserWithDuplicateEmail() throws Exception {
+        when(userService.createNewUser(any(User.class)))
+                .thenThrow(new DataIntegrityViolationException("Unique index violation: ux_user_email"));
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .post("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"test@example.com\",\"firstName\":\"John\",\"lastName\":\"Doe\",\"birthDate\":\"1990-01-01\"}"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.status").value(409))
+                .andExpect(jsonPath("$.detail").value("A user with this email already exists"));
+    }
+
+    @Test
+    public void testCreateUserAsynchronously() throws Exception {
+        when(userWriteBehindLog.isEnabled()).thenReturn(true);
+        when(userWriteBehindLog.append(any(User.class))).thenReturn(PendingUserStatus.accepted(7));
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .post("/users")
+                        .header("Prefer", "respond-async")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"test@example.com\",\"firstName\":\"John\",\"lastName\":\"Doe\",\"birthDate\":\"1990-01-01\"}"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "http://localhost/users/pending/7"))
+                .andExpect(header().string("Preference-Applied", "respond-async"))
+                .andExpect(jsonPath("$.ticket").value(7))
+                .andExpect(jsonPath("$.status").value(202));
+
+        verify(userService, never()).createNewUser(any(User.class));
+    }
+
+    @Test
+    public void testCreateUserAsynchronouslyStillValidates() throws Exception {
+        when(userWriteBehindLog.isEnabled()).thenReturn(true);
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .post("/users")
+                        .header("Prefer", "respond-async")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"test@example.com\",\"firstName\":\"John\",\"lastName\":\"Doe\",\"birthDate\":\"2020-01-01\"}"))
+                .andExpect(status().isBadRequest());
+
+        verify(userWriteBehindLog, never()).append(any(User.class));
+    }
+
+    @Test
+    public void testGetPendingUser() throws Exception {
+        when(userWriteBehindLog.status(7)).thenReturn(Optional.of(PendingUserStatus.of(7, BatchItemResult.created(0, 1L))));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/users/pending/7"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value(201))
+                .andExpect(jsonPath("$.id").value(1));
+        mockMvc.perform(MockMvcRequestBuilders.get("/users/pending/8"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message").value("Resource not found"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testCreateUsersBatch() throws Exception {
+        when(userService.createNewUsers(any(List.class))).thenReturn(List.of(
+                BatchItemResult.created(0, 1L), BatchItemResult.rejected(1, List.of("Email can't be empty"))));
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .post("/users/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"email\":\"test@example.com\",\"firstName\":\"John\",\"lastName\":\"Doe\",\"birthDate\":\"1990-01-01\"},"
+                                + "{\"firstName\":\"John\",\"lastName\":\"Doe\",\"birthDate\":\"1990-01-01\"}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value(201))
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[1].status").value(400))
+                .andExpect(jsonPath("$[1].errors[0]").value("Email can't be empty"));
+
+        verify(userService, times(1)).createNewUsers(argThat(users -> users.size() == 2));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testCreateUsersBatchFromNdjson() throws Exception {
+        when(userService.createNewUsers(any(List.class))).thenReturn(List.of(
+                BatchItemResult.created(0, 1L), BatchItemResult.created(1, 2L)));
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .post("/users/batch")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"email\":\"first@example.com\",\"firstName\":\"John\",\"lastName\":\"Doe\",\"birthDate\":\"1990-01-01\"}\n"
+                                + "{\"email\":\"second@example.com\",\"firstName\":\"Jane\",\"lastName\":\"Doe\",\"birthDate\":\"1990-01-01\"}\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[1].id").value(2));
+
+        verify(userService, times(1)).createNewUsers(argThat(users -> users.size() == 2
+                && "second@example.com".equals(users.get(1).getEmail())));
+    }
+
+    @Test
+    public void testCreateUsersBatchFromInvalidNdjson() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders
+                        .post("/users/batch")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"email\":"))
+                .andExpect(status().isBadRequest());
+
+        verify(userService, never()).createNewUsers(any());
+    }
+
     @Test
     public void testGetUser() throws Exception {
         when(userService.findUserById(1L)).thenReturn(testUser);
@@ -89,10 +246,142 @@ public class UserControllerTest {
         verify(userModelAssembler, times(1)).toModel(testUser);
     }
 
+    @Test
+    public void testGetUserReturnsETag() throws Exception {
+        testUser.setVersion(3L);
+        when(userService.findUserById(1L)).thenReturn(testUser);
+        when(userModelAssembler.toModel(testUser)).thenReturn(EntityModel.of(testUser));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/users/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3\""))
+                .andExpect(jsonPath("$.version").doesNotExist());
+    }
+
+    @Test
+    public void testGetUserAsCbor() throws Exception {
+        when(userService.findUserById(1L)).thenReturn(testUser);
+        when(userModelAssembler.toModel(testUser)).thenReturn(EntityModel.of(testUser,
+                linkTo(methodOn(UserController.class).getUser(testUser.getId(), null)).withSelfRel()));
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders
+                        .get("/users/1")
+                        .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andExpect(header().string("Vary", "Accept"))
+                .andReturn();
+
+        JsonNode user = new CBORMapper().readTree(result.getResponse().getContentAsByteArray());
+        assertEquals("test@example.com", user.get("email").asText());
+        assertTrue(user.get("birthDate").isIntegralNumber());
+        assertEquals(LocalDate.of(1889, 1, 1).toEpochDay(), user.get("birthDate").asLong());
+        assertEquals("http://localhost/users/1", user.get("_links").get("self").get("href").asText());
+    }
+
+    @Test
+    public void testBinaryEncodingsHaveTheirOwnETag() throws Exception {
+        testUser.setVersion(3L);
+        when(userService.findUserById(1L)).thenReturn(testUser);
+        when(userModelAssembler.toModel(testUser)).thenReturn(EntityModel.of(testUser));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/users/1").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3-cbor\""));
+        mockMvc.perform(MockMvcRequestBuilders.get("/users/1")
+                        .header("Accept", "application/json;q=0.5, application/x-jackson-smile"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-jackson-smile"))
+                .andExpect(header().string("ETag", "\"3-smile\""));
+        mockMvc.perform(MockMvcRequestBuilders.get("/users/1")
+                        .header("Accept", "application/cbor;q=0.5, */*"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaTypes.HAL_JSON))
+                .andExpect(header().string("ETag", "\"3\""));
+        mockMvc.perform(MockMvcRequestBuilders.get("/users/1")
+                        .accept(MediaType.APPLICATION_CBOR)
+                        .header("If-None-Match", "\"3\""))
+                .andExpect(status().isOk());
+        mockMvc.perform(MockMvcRequestBuilders.get("/users/1")
+                        .accept(MediaType.APPLICATION_CBOR)
+                        .header("If-None-Match", "\"3-cbor\""))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    public void testUpdateUserWithBinaryIfMatch() throws Exception {
+        User updatedUser = new User();
+        updatedUser.setId(1L);
+        updatedUser.setVersion(4L);
+
+        when(userService.updateUserByFields(any(Map.class), eq(1L), eq(3L))).thenReturn(updatedUser);
+        when(userModelAssembler.toModel(updatedUser)).thenReturn(EntityModel.of(updatedUser));
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .patch("/users/1")
+                        .header("If-Match", "\"3-cbor\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_CBOR)
+                        .content("{\"phoneNumber\":\"1234567890\"}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"4-cbor\""));
+    }
+
+    @Test
+    public void testGetUserDefaultsToHalJson() throws Exception {
+        when(userService.findUserById(1L)).thenReturn(testUser);
+        when(userModelAssembler.toModel(testUser)).thenReturn(EntityModel.of(testUser));
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/users/1")
+                        .accept(MediaType.ALL))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaTypes.HAL_JSON))
+                .andExpect(jsonPath("$.birthDate").value("1889-01-01T00:00:00.000+00:00"));
+    }
+
+    @Test
+    public void testGetUserNotModified() throws Exception {
+        testUser.setVersion(3L);
+        when(userService.findUserById(1L)).thenReturn(testUser);
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/users/1")
+                        .header("If-None-Match", "\"3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        verify(userModelAssembler, never()).toModel(any(User.class));
+    }
+
+    @Test
+    public void testGetAllUsersNotModified() throws Exception {
+        when(userService.getUsersVersion()).thenReturn("run-5");
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/users")
+                        .header("If-None-Match", "\"run-5\""))
+                .andExpect(status().isNotModified());
+
+        verify(userService, never()).findUsersAfter(any(), anyInt());
+    }
+
+    @Test
+    public void testGetAllUsersReturnsCollectionETag() throws Exception {
+        when(userService.getUsersVersion()).thenReturn("run-6");
+        when(userService.findUsersAfter(null, 20)).thenReturn(new SliceImpl<>(List.of()));
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/users")
+                        .header("If-None-Match", "\"run-5\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"run-6\""));
+    }
+
     @Test
     public void testGetAllUsers() throws Exception {
         List<User> users = Arrays.asList(testUser, testUser);
-        when(userService.findAllUsers()).thenReturn(users);
+        when(userService.findUsersAfter(null, 20)).thenReturn(new SliceImpl<>(users, PageRequest.ofSize(20), false));
         when(userModelAssembler.toModel(testUser)).thenReturn(EntityModel.of(testUser));
 
         mockMvc.perform(MockMvcRequestBuilders
@@ -101,12 +390,153 @@ public class UserControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$._embedded.userList").isArray())
                 .andExpect(jsonPath("$._embedded.userList[0].id").value(1))
-                .andExpect(jsonPath("$._embedded.userList[1].id").value(1));
+                .andExpect(jsonPath("$._embedded.userList[1].id").value(1))
+                .andExpect(jsonPath("$._links.next").doesNotExist());
 
-        verify(userService, times(1)).findAllUsers();
+        verify(userService, times(1)).findUsersAfter(null, 20);
         verify(userModelAssembler, times(2)).toModel(any(User.class));
     }
 
+    @Test
+    public void testGetAllUsersAsCbor() throws Exception {
+        when(userService.findUsersAfter(null, 20)).thenReturn(new SliceImpl<>(List.of(testUser)));
+        when(userModelAssembler.toModel(testUser)).thenReturn(EntityModel.of(testUser,
+                linkTo(methodOn(UserController.class).getUser(testUser.getId(), null)).withSelfRel()));
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders
+                        .get("/users")
+                        .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn();
+
+        JsonNode users = new CBORMapper().readTree(result.getResponse().getContentAsByteArray());
+        assertEquals("http://localhost/users/1",
+                users.get("_embedded").get("userList").get(0).get("_links").get("self").get("href").asText());
+        assertEquals("http://localhost/users", users.get("_links").get("self").get("href").asText());
+    }
+
+    @Test
+    public void testGetAllUsersAsSmile() throws Exception {
+        when(userService.findUsersAfter(0L, 1))
+                .thenReturn(new SliceImpl<>(List.of(testUser), PageRequest.ofSize(1), true));
+        when(userModelAssembler.toModel(testUser)).thenReturn(EntityModel.of(testUser,
+                linkTo(methodOn(UserController.class).getUser(testUser.getId(), null)).withSelfRel()));
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders
+                        .get("/users")
+                        .param("after", "0")
+                        .param("limit", "1")
+                        .accept(MediaType.valueOf("application/x-jackson-smile")))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-jackson-smile"))
+                .andReturn();
+
+        JsonNode users = new SmileMapper().readTree(result.getResponse().getContentAsByteArray());
+        JsonNode user = users.get("_embedded").get("userList").get(0);
+        assertEquals(1, user.get("id").asLong());
+        assertEquals(LocalDate.of(1889, 1, 1).toEpochDay(), user.get("birthDate").asLong());
+        assertEquals("http://localhost/users/1", user.get("_links").get("self").get("href").asText());
+        assertEquals("http://localhost/users?after=1&limit=1", users.get("_links").get("next").get("href").asText());
+    }
+
+    @Test
+    public void testGetAllUsersWithNextPage() throws Exception {
+        when(userService.findUsersAfter(0L, 1))
+                .thenReturn(new SliceImpl<>(List.of(testUser), PageRequest.ofSize(1), true));
+        when(userModelAssembler.toModel(testUser)).thenReturn(EntityModel.of(testUser));
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/users")
+                        .param("after", "0")
+                        .param("limit", "1")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.userList[0].id").value(1))
+                .andExpect(jsonPath("$._links.self.href").value("http://localhost/users?after=0&limit=1"))
+                .andExpect(jsonPath("$._links.next.href").value("http://localhost/users?after=1&limit=1"));
+
+        verify(userService, times(1)).findUsersAfter(0L, 1);
+    }
+
+    @Test
+    public void testGetAllUsersWithFields() throws Exception {
+        UserFields user = new UserFields();
+        user.put("id", 1L);
+        user.put("lastName", "Doe");
+        when(userService.findUsersAfter(null, 1, Set.of("lastName")))
+                .thenReturn(new SliceImpl<>(List.of(user), PageRequest.ofSize(1), true));
+        when(userModelAssembler.toModel(user)).thenReturn(EntityModel.of(user));
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/users")
+                        .param("limit", "1")
+                        .param("fields", "lastName")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.userList[0].id").value(1))
+                .andExpect(jsonPath("$._embedded.userList[0].lastName").value("Doe"))
+                .andExpect(jsonPath("$._embedded.userList[0].email").doesNotExist())
+                .andExpect(jsonPath("$._links.next.href").value("http://localhost/users?after=1&limit=1&fields=lastName"));
+
+        verify(userService, never()).findUsersAfter(any(), anyInt());
+    }
+
+    @Test
+    public void testGetAllUsersWithUnknownField() throws Exception {
+        when(userService.findUsersAfter(null, 20, Set.of("password")))
+                .thenThrow(new ParametersValidationException("Field 'password' is not valid."));
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/users")
+                        .param("fields", "password")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Bad user request"))
+                .andExpect(jsonPath("$.detail").value("Field 'password' is not valid."));
+    }
+
+    @Test
+    public void testGetAllUsersLimitIsCapped() throws Exception {
+        when(userService.findUsersAfter(null, 100)).thenReturn(new SliceImpl<>(List.of()));
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .get("/users")
+                        .param("limit", "100000")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        verify(userService, times(1)).findUsersAfter(null, 100);
+    }
+
+    @Test
+    public void testExportUsers() throws Exception {
+        User secondUser = new User("second@example.com", "Jane", "Doe", testUser.getBirthDate());
+        secondUser.setId(2L);
+        doAnswer(invocation -> {
+            Consumer<User> consumer = invocation.getArgument(0);
+            consumer.accept(testUser);
+            consumer.accept(secondUser);
+            return null;
+        }).when(userService).exportUsers(any());
+
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get("/users/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("{\"id\":1,\"email\":\"test@example.com\""));
+        assertTrue(lines[1].startsWith("{\"id\":2,\"email\":\"second@example.com\""));
+        assertTrue(body.endsWith("}\n"));
+        verify(userModelAssembler, never()).toModel(any(User.class));
+    }
+
     @Test
     public void testUpdateUser() throws Exception {
         User updatedUser = new User();
@@ -116,7 +546,7 @@ public class UserControllerTest {
         updatedUser.setLastName("User");
         updatedUser.setBirthDate(new SimpleDateFormat("yyyy-MM-dd").parse("1990-01-01"));
 
-        when(userService.updateUser(any(User.class), eq(1L))).thenReturn(updatedUser);
+        when(userService.updateUser(any(User.class), eq(1L), isNull())).thenReturn(updatedUser);
         when(userModelAssembler.toModel(updatedUser)).thenReturn(EntityModel.of(updatedUser));
 
         mockMvc.perform(MockMvcRequestBuilders
@@ -129,7 +559,7 @@ public class UserControllerTest {
                 .andExpect(jsonPath("$.firstName").value("Updated"))
                 .andExpect(jsonPath("$.lastName").value("User"));
 
-        verify(userService, times(1)).updateUser(any(User.class), eq(1L));
+        verify(userService, times(1)).updateUser(any(User.class), eq(1L), isNull());
         verify(userModelAssembler, times(1)).toModel(updatedUser);
     }
 
@@ -139,7 +569,7 @@ public class UserControllerTest {
         updatedUser.setId(1L);
         updatedUser.setPhoneNumber("1234567890");
 
-        when(userService.updateUserByFields(any(Map.class), eq(1L))).thenReturn(updatedUser);
+        when(userService.updateUserByFields(any(Map.class), eq(1L), isNull())).thenReturn(updatedUser);
         when(userModelAssembler.toModel(updatedUser)).thenReturn(EntityModel.of(updatedUser));
 
         mockMvc.perform(MockMvcRequestBuilders
@@ -150,10 +580,86 @@ public class UserControllerTest {
                 .andExpect(jsonPath("$.id").value(1))
                 .andExpect(jsonPath("$.phoneNumber").value("1234567890"));
 
-        verify(userService, times(1)).updateUserByFields(any(Map.class), eq(1L));
+        verify(userService, times(1)).updateUserByFields(any(Map.class), eq(1L), isNull());
         verify(userModelAssembler, times(1)).toModel(updatedUser);
     }
 
+    @Test
+    public void testUpdateUserPartiallyIfMatch() throws Exception {
+        User updatedUser = new User();
+        updatedUser.setId(1L);
+        updatedUser.setVersion(3L);
+
+        when(userService.updateUserByFields(any(Map.class), eq(1L), eq(2L))).thenReturn(updatedUser);
+        when(userModelAssembler.toModel(updatedUser)).thenReturn(EntityModel.of(updatedUser));
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .patch("/users/1")
+                        .header("If-Match", "\"2\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"phoneNumber\":\"1234567890\"}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3\""));
+    }
+
+    @Test
+    public void testUpdateUserPreconditionFailed() throws Exception {
+        when(userService.updateUser(any(User.class), eq(1L), eq(2L))).thenThrow(new PreconditionFailedException(1L));
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .put("/users/1")
+                        .header("If-Match", "\"2\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"updated@example.com\",\"firstName\":\"Updated\",\"lastName\":\"User\",\"birthDate\":\"1990-01-01\"}"))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.message").value("Precondition failed"));
+    }
+
+    @Test
+    public void testUpdateUserWithIfMatchList() throws Exception {
+        User updatedUser = new User();
+        updatedUser.setId(1L);
+        updatedUser.setVersion(3L);
+
+        when(userService.findUserVersion(1L)).thenReturn(2L);
+        when(userService.updateUser(any(User.class), eq(1L), eq(2L))).thenReturn(updatedUser);
+        when(userModelAssembler.toModel(updatedUser)).thenReturn(EntityModel.of(updatedUser));
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .put("/users/1")
+                        .header("If-Match", "\"7\", W/\"3\", \"2\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"updated@example.com\",\"firstName\":\"Updated\",\"lastName\":\"User\",\"birthDate\":\"1990-01-01\"}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3\""));
+    }
+
+    @Test
+    public void testUpdateUserWithIfMatchListNotMatching() throws Exception {
+        when(userService.findUserVersion(1L)).thenReturn(2L);
+
+        mockMvc.perform(MockMvcRequestBuilders
+                        .patch("/users/1")
+                        .header("If-Match", "\"7\", \"8\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"phoneNumber\":\"1234567890\"}"))
+                .andExpect(status().isPreconditionFailed());
+
+        verify(userService, never()).updateUserByFields(any(), any(), any());
+    }
+
+    @Test
+    public void testUpdateUserWithWeakIfMatch() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders
+                        .patch("/users/1")
+                        .header("If-Match", "W/\"2\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"phoneNumber\":\"1234567890\"}"))
+                .andExpect(status().isPreconditionFailed());
+
+        verify(userService, never()).updateUserByFields(any(), any(), any());
+    }
+
     @Test
     public void testDeleteUser() throws Exception {
         mockMvc.perform(MockMvcRequestBuilders.delete("/users/1")
@@ -162,20 +668,119 @@ public class UserControllerTest {
         verify(userService, times(1)).deleteUserById(eq(1L));
     }
 
+    @Test
+    public void testUpdateUsersByIds() throws Exception {
+        when(userService.updateUsersById(Map.of("lastName", "Roe"), List.of(1L, 2L))).thenReturn(2L);
+
+        mockMvc.perform(MockMvcRequestBuilders.patch("/users?ids=1,2")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"lastName\":\"Roe\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.affected").value(2));
+    }
+
+    @Test
+    public void testDeleteUsersByBirthDateRange() throws Exception {
+        Date fromDate = new SimpleDateFormat("yyyy-MM-dd").parse("1889-01-01");
+        Date toDate = new SimpleDateFormat("yyyy-MM-dd").parse("1990-12-31");
+        when(userService.deleteUsersByBirthDateBetween(fromDate, toDate)).thenReturn(3L);
+
+        mockMvc.perform(MockMvcRequestBuilders.delete("/users?from=1889-01-01&to=1990-12-31"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.affected").value(3));
+    }
+
+    @Test
+    public void testDeleteUsersRequiresAFilter() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.delete("/users"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(MockMvcRequestBuilders.delete("/users?ids=1&from=1889-01-01&to=1990-12-31"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(MockMvcRequestBuilders.delete("/users?from=1990-12-31&to=1889-01-01"))
+                .andExpect(status().isBadRequest());
+        verify(userService, never()).deleteUsersById(any());
+        verify(userService, never()).deleteUsersByBirthDateBetween(any(), any());
+    }
+
     @Test
     public void testSearchUsersByBirthDateRange() throws Exception {
         Date fromDate = new SimpleDateFormat("yyyy-MM-dd").parse("1889-01-01");
         Date toDate = new SimpleDateFormat("yyyy-MM-dd").parse("1990-12-31");
 
         List<User> users = Arrays.asList(testUser, testUser);
-        when(userService.searchByDate(fromDate, toDate)).thenReturn(users);
+        when(userService.searchByDate(eq(fromDate), eq(toDate), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(users, PageRequest.ofSize(20), false));
+        when(userModelAssembler.toModel(testUser)).thenReturn(EntityModel.of(testUser));
 
         mockMvc.perform(MockMvcRequestBuilders.get("/users/search")
                         .param("from", "1889-01-01")
                         .param("to", "1990-12-31")
                         .contentType(MediaType.APPLICATION_JSON))
-                .andExpect(status().isOk());
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.userList[1].id").value(1))
+                .andExpect(jsonPath("$._links.next").doesNotExist());
+
+        verify(userService, times(1)).searchByDate(fromDate, toDate,
+                PageRequest.of(0, 20, Sort.by("birthDate", "id")));
+    }
+
+    @Test
+    public void testSearchUsersByBirthDateRangeWithFields() throws Exception {
+        Date fromDate = new SimpleDateFormat("yyyy-MM-dd").parse("1889-01-01");
+        Date toDate = new SimpleDateFormat("yyyy-MM-dd").parse("1990-12-31");
+        UserFields user = new UserFields();
+        user.put("id", 1L);
+        user.put("email", "test@example.com");
+        when(userService.searchByDate(eq(fromDate), eq(toDate), any(Pageable.class), eq(Set.of("id", "email"))))
+                .thenReturn(new SliceImpl<>(List.of(user), PageRequest.ofSize(20), false));
+        when(userModelAssembler.toModel(user)).thenReturn(EntityModel.of(user));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/users/search?from=1889-01-01&to=1990-12-31&fields=id,email")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.userList[0].email").value("test@example.com"))
+                .andExpect(jsonPath("$._embedded.userList[0].firstName").doesNotExist());
+
+        verify(userService, never()).searchByDate(any(), any(), any());
+    }
+
+    @Test
+    public void testSearchUsersByText() throws Exception {
+        when(userService.searchByText("doe", 20)).thenReturn(List.of(testUser));
+        when(userModelAssembler.toModel(testUser)).thenReturn(EntityModel.of(testUser));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/users/search/text?q=doe")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.userList[0].lastName").value("Doe"))
+                .andExpect(jsonPath("$._links.self.href").value("http://localhost/users/search/text?q=doe"));
+    }
+
+    @Test
+    public void testSearchUsersByBlankText() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/users/search/text")
+                        .param("q", " ")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+
+        verify(userService, never()).searchByText(any(), anyInt());
+    }
+
+    @Test
+    public void testSearchUsersByBirthDateRangeWithNextPage() throws Exception {
+        Date fromDate = new SimpleDateFormat("yyyy-MM-dd").parse("1889-01-01");
+        Date toDate = new SimpleDateFormat("yyyy-MM-dd").parse("1990-12-31");
+        Pageable pageable = PageRequest.of(1, 1, Sort.by("lastName"));
+        when(userService.searchByDate(fromDate, toDate, pageable))
+                .thenReturn(new SliceImpl<>(List.of(testUser), pageable, true));
+        when(userModelAssembler.toModel(testUser)).thenReturn(EntityModel.of(testUser));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/users/search?from=1889-01-01&to=1990-12-31&page=1&size=1&sort=lastName")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._links.next.href")
+                        .value("http://localhost/users/search?from=1889-01-01&to=1990-12-31&size=1&sort=lastName&page=2"));
 
-        verify(userService, times(1)).searchByDate(fromDate, toDate);
+        verify(userService, times(1)).searchByDate(fromDate, toDate, pageable);
     }
 }
@@ -7,11 +7,16 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.hateoas.Link;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
 import java.util.Date;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 
 @SpringBootTest
 public class UserModelAssemblerTest {
@@ -39,7 +44,30 @@ public class UserModelAssemblerTest {
         assertTrue(usersLinkOptional.isPresent());
         Link usersLink = usersLinkOptional.get();
         assertEquals("users", usersLink.getRel().value());
+        assertEquals("http://localhost/users", usersLink.getHref());
 
         assertEquals(user, entityModel.getContent());
     }
+
+    @Test
+    public void testToModelLinksMatchControllerMappings() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users");
+        request.setScheme("https");
+        request.setServerName("example.com");
+        request.setServerPort(8443);
+        request.setContextPath("/api");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        try {
+            user.setId(42L);
+            EntityModel<User> entityModel = userModelAssembler.toModel(user);
+
+            assertEquals(linkTo(methodOn(UserController.class).getUser(42L, null)).withSelfRel().toString(),
+                    entityModel.getRequiredLink("self").toString());
+            assertEquals(linkTo(methodOn(UserController.class).getAllUsers(null, null, null, null)).withRel("users").expand().toString(),
+                    entityModel.getRequiredLink("users").toString());
+            assertEquals("https://example.com:8443/api/users/42", entityModel.getRequiredLink("self").getHref());
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
 }
@@ -0,0 +1,97 @@
+package com.company.usersresourceapp.repository;
+
+import com.company.usersresourceapp.config.JpaRepositoriesConfiguration;
+import com.company.usersresourceapp.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE) // the schema is the Flyway one
+@Import(JpaRepositoriesConfiguration.class)
+public class UserBulkRepositoryTest {
+    @Autowired
+    private UserRepository userRepository;
+
+    private final SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd");
+
+    private User first;
+
+    private User second;
+
+    private User third;
+
+    @BeforeEach
+    void setUp() throws ParseException {
+        first = userRepository.save(newUser("first", "1980-01-01"));
+        second = userRepository.save(newUser("second", "1970-01-01"));
+        third = userRepository.save(newUser("third", "1975-01-01"));
+        userRepository.flush();
+    }
+
+    @Test
+    public void testUpdateUsersByIdReturnsUpdatedUsers() {
+        Map<String, Object> values = new HashMap<>();
+        values.put("lastName", "Roe");
+        values.put("address", null);
+
+        List<User> users = userRepository.updateUsersById(values, List.of(first.getId(), third.getId(), Long.MAX_VALUE));
+
+        assertEquals(List.of(first.getId(), third.getId()), users.stream().map(User::getId).sorted().toList());
+        users.forEach(user -> {
+            assertEquals("Roe", user.getLastName());
+            assertNull(user.getAddress());
+            assertEquals(1L, user.getVersion());
+        });
+    }
+
+    @Test
+    public void testUpdateUsersByBirthDateBetweenIsChunkedById() throws ParseException {
+        Map<String, Object> values = Map.of("birthDate", format.parse("1990-01-01"));
+        Date from = format.parse("1960-01-01");
+        Date to = format.parse("1985-01-01");
+
+        List<User> users = userRepository.updateUsersByBirthDateBetween(values, from, to, 0L, 2);
+
+        assertEquals(List.of(first.getId(), second.getId()), users.stream().map(User::getId).sorted().toList());
+        // Moved out of the range, the updated users are not selected again
+        assertEquals(List.of(third.getId()), userRepository.updateUsersByBirthDateBetween(values, from, to, 0L, 2)
+                .stream().map(User::getId).toList());
+    }
+
+    @Test
+    public void testDeleteUsersByIdReturnsDeletedIds() {
+        List<Long> ids = userRepository.deleteUsersById(List.of(second.getId(), Long.MAX_VALUE));
+
+        assertEquals(List.of(second.getId()), ids);
+        assertFalse(userRepository.existsById(second.getId()));
+        assertEquals(2, userRepository.count());
+    }
+
+    @Test
+    public void testDeleteUsersByBirthDateBetweenStartsAfterTheGivenId() throws ParseException {
+        List<Long> ids = userRepository.deleteUsersByBirthDateBetween(format.parse("1970-01-01"),
+                format.parse("1980-01-01"), first.getId(), 10);
+
+        assertEquals(List.of(second.getId(), third.getId()), ids.stream().sorted().toList());
+        assertTrue(userRepository.existsById(first.getId()));
+    }
+
+    private User newUser(String name, String birthDate) throws ParseException {
+        User user = new User(name + "@example.com", "John", "Doe", format.parse(birthDate));
+        user.setAddress("Main street");
+        return user;
+    }
+}
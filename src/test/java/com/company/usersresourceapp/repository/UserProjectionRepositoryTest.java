@@ -0,0 +1,60 @@
+package com.company.usersresourceapp.repository;
+
+import com.company.usersresourceapp.config.JpaRepositoriesConfiguration;
+import com.company.usersresourceapp.model.User;
+import com.company.usersresourceapp.model.UserFields;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE) // the schema is the Flyway one
+@Import(JpaRepositoriesConfiguration.class)
+public class UserProjectionRepositoryTest {
+    @Autowired
+    private UserRepository userRepository;
+
+    private User first;
+
+    @BeforeEach
+    void setUp() throws ParseException {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd");
+        first = userRepository.save(new User("first@example.com", "John", "Doe", format.parse("1980-01-01")));
+        userRepository.save(new User("second@example.com", "Jane", "Roe", format.parse("1970-01-01")));
+        userRepository.flush();
+    }
+
+    @Test
+    public void testFindFieldsByIdGreaterThanSelectsOnlyTheFields() {
+        Slice<UserFields> users = userRepository.findFieldsByIdGreaterThan(List.of("email"), 0L, PageRequest.ofSize(1));
+
+        assertEquals(1, users.getNumberOfElements());
+        assertTrue(users.hasNext());
+        UserFields user = users.getContent().get(0);
+        assertEquals(List.of("id", "email"), List.copyOf(user.keySet()));
+        assertEquals(first.getId(), user.getId());
+        assertEquals("first@example.com", user.get("email"));
+    }
+
+    @Test
+    public void testFindFieldsByBirthDateBetweenIsSorted() throws ParseException {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd");
+        Slice<UserFields> users = userRepository.findFieldsByBirthDateBetween(List.of("lastName"),
+                format.parse("1960-01-01"), format.parse("1990-01-01"), PageRequest.of(0, 10, Sort.by("birthDate")));
+
+        assertEquals(List.of("Roe", "Doe"), users.stream().map(user -> user.get("lastName")).toList());
+        assertFalse(users.hasNext());
+    }
+}
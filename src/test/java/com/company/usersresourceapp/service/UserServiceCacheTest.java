@@ -0,0 +1,69 @@
+package com.company.usersresourceapp.service;
+
+import com.company.usersresourceapp.model.User;
+import com.company.usersresourceapp.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest
+public class UserServiceCacheTest {
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @MockBean
+    private UserRepository userRepository;
+
+    private User testUser;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager.getCache(UserService.USERS_CACHE).clear();
+        testUser = new User();
+        testUser.setId(1L);
+        testUser.setEmail("test@example.com");
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+    }
+
+    @Test
+    public void testFindUserByIdIsCached() {
+        assertSame(testUser, userService.findUserById(1L));
+        assertSame(testUser, userService.findUserById(1L));
+
+        verify(userRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    public void testDeleteUserByIdEvictsCachedUser() {
+        when(userRepository.deleteUserById(1L)).thenReturn(1);
+        userService.findUserById(1L);
+        userService.deleteUserById(1L);
+
+        assertNull(cacheManager.getCache(UserService.USERS_CACHE).get(1L));
+    }
+
+    @Test
+    public void testUpdateUserRefreshesCachedUser() {
+        userService.findUserById(1L);
+        User updatedUser = new User();
+        updatedUser.setEmail("updated@example.com");
+        when(userRepository.updateUser(any(User.class), isNull()))
+                .thenAnswer(invocation -> Optional.of(invocation.getArgument(0)));
+
+        userService.updateUser(updatedUser, 1L, null);
+
+        assertEquals("updated@example.com", userService.findUserById(1L).getEmail());
+        verify(userRepository, times(1)).findById(1L);
+    }
+}
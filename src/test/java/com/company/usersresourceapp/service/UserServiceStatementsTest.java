@@ -0,0 +1,136 @@
+package com.company.usersresourceapp.service;
+
+import com.company.usersresourceapp.exception.PreconditionFailedException;
+import com.company.usersresourceapp.exception.UserNotFoundException;
+import com.company.usersresourceapp.model.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.company.usersresourceapp.util.StatementAssertions.assertMaxStatements;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:statements-test;NON_KEYWORDS=user")
+public class UserServiceStatementsTest {
+    @Autowired
+    private UserService userService;
+
+    @Test
+    public void testCreateNewUser() {
+        // The next value of the id sequence, then the insert
+        assertMaxStatements(2, () -> userService.createNewUser(newUser("create")));
+    }
+
+    @Test
+    public void testCreateNewUsersIsBatched() {
+        List<User> users = List.of(newUser("batch1"), newUser("batch2"), newUser("batch3"));
+
+        assertMaxStatements(2, () -> userService.createNewUsers(users));
+    }
+
+    @Test
+    public void testFindUserByIdIsCached() {
+        User user = userService.createNewUser(newUser("cached"));
+
+        assertMaxStatements(0, () -> userService.findUserById(user.getId()));
+    }
+
+    @Test
+    public void testUpdateUserByFields() {
+        User user = userService.createNewUser(newUser("patch"));
+
+        // Loaded, then updated on the version that was read
+        assertMaxStatements(2, () -> userService.updateUserByFields(Map.of("firstName", "Jane"), user.getId(), null));
+    }
+
+    @Test
+    public void testUpdateUser() {
+        User user = userService.createNewUser(newUser("put"));
+
+        User updatedUser = assertMaxStatements(1, () -> userService.updateUser(newUser("updated"), user.getId(), 0L));
+
+        assertEquals("updated@example.com", updatedUser.getEmail());
+        assertEquals(1L, updatedUser.getVersion());
+        assertEquals(updatedUser.getEmail(), userService.findUserById(user.getId()).getEmail());
+    }
+
+    @Test
+    public void testUpdateUserByFieldsClearsNullFields() {
+        User newUser = newUser("clear");
+        newUser.setAddress("Main street 1");
+        newUser.setPhoneNumber("1234567890");
+        User user = userService.createNewUser(newUser);
+        Map<Object, Object> fields = new HashMap<>();
+        fields.put("address", null);
+        fields.put("phoneNumber", null);
+
+        User updatedUser = userService.updateUserByFields(fields, user.getId(), null);
+
+        assertNull(updatedUser.getAddress());
+        assertNull(updatedUser.getPhoneNumber());
+        assertNull(userService.findUserById(user.getId()).getAddress());
+    }
+
+    @Test
+    public void testUpdateUserKeepsNullFields() {
+        User newUser = newUser("keep");
+        newUser.setAddress("Main street 1");
+        User user = userService.createNewUser(newUser);
+
+        User updatedUser = userService.updateUser(newUser("kept"), user.getId(), null);
+
+        assertEquals("Main street 1", updatedUser.getAddress());
+    }
+
+    @Test
+    public void testUpdateUserWithStaleVersion() {
+        User user = userService.createNewUser(newUser("stale"));
+
+        // Only the failure tells a missing user from a modified one, with one more statement
+        assertMaxStatements(2, () -> assertThrows(PreconditionFailedException.class,
+                () -> userService.updateUser(newUser("lost"), user.getId(), 5L)));
+        assertThrows(UserNotFoundException.class, () -> userService.updateUser(newUser("lost"), Long.MAX_VALUE, null));
+    }
+
+    @Test
+    public void testDeleteUserById() {
+        User user = userService.createNewUser(newUser("delete"));
+
+        assertMaxStatements(1, () -> userService.deleteUserById(user.getId()));
+        assertThrows(UserNotFoundException.class, () -> userService.deleteUserById(user.getId()));
+    }
+
+    @Test
+    public void testUpdateUsersById() {
+        List<Long> ids = List.of(userService.createNewUser(newUser("bulk-patch1")).getId(),
+                userService.createNewUser(newUser("bulk-patch2")).getId());
+
+        // Updated and read back with a single statement, the transaction bounds the chunk
+        long updated = assertMaxStatements(1, () -> userService.updateUsersById(Map.of("lastName", "Roe"), ids));
+
+        assertEquals(2, updated);
+        assertEquals("Roe", userService.findUserById(ids.get(0)).getLastName());
+    }
+
+    @Test
+    public void testDeleteUsersById() {
+        List<Long> ids = List.of(userService.createNewUser(newUser("bulk-delete1")).getId(),
+                userService.createNewUser(newUser("bulk-delete2")).getId(), Long.MAX_VALUE);
+
+        long deleted = assertMaxStatements(1, () -> userService.deleteUsersById(ids));
+
+        assertEquals(2, deleted);
+        assertThrows(UserNotFoundException.class, () -> userService.findUserById(ids.get(0)));
+    }
+
+    private static User newUser(String name) {
+        return new User(name + "@example.com", "John", "Doe", new Date(0));
+    }
+}
@@ -1,17 +1,40 @@
 package com.company.usersresourceapp.service;
 
+import com.company.usersresourceapp.exception.ParametersValidationException;
+import com.company.usersresourceapp.exception.PreconditionFailedException;
 import com.company.usersresourceapp.exception.UserNotFoundException;
+import com.company.usersresourceapp.model.BatchItemResult;
 import com.company.usersresourceapp.model.User;
+import com.company.usersresourceapp.model.UserFields;
 import com.company.usersresourceapp.repository.UserRepository;
+import com.company.usersresourceapp.util.UserFieldSetters;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -23,9 +46,31 @@ public class UserServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private Validator validator;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private UserTextIndex userTextIndex;
+
+    @Mock
+    private UserSnapshotStore userSnapshotStore;
+
+    @Spy
+    private CacheManager cacheManager = new ConcurrentMapCacheManager(UserService.USERS_CACHE);
+
+    @Spy
+    private UserFieldSetters userFieldSetters = new UserFieldSetters(new ObjectMapper());
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(userService, "batchChunkSize", 2);
     }
 
     @Test
@@ -38,6 +83,8 @@ public class UserServiceTest {
 
         assertNotNull(createdUser);
         assertEquals(1L, createdUser.getId());
+        verify(userTextIndex).put(testUser);
+        verify(userSnapshotStore).put(testUser);
     }
 
     @Test
@@ -62,7 +109,200 @@ public class UserServiceTest {
     }
 
     @Test
-    public void testFindAllUsers() {
+    public void testFindUserByIdFromSnapshot() {
+        User testUser = new User();
+        testUser.setId(1L);
+        when(userSnapshotStore.isServing()).thenReturn(true);
+        when(userSnapshotStore.findById(1L)).thenReturn(Optional.of(testUser));
+
+        assertSame(testUser, userService.findUserById(1L));
+        assertThrows(UserNotFoundException.class, () -> userService.findUserById(2L));
+        verify(userRepository, never()).findById(any());
+    }
+
+    @Test
+    public void testSearchByDateFromSnapshot() {
+        Date from = new Date(0);
+        Date to = new Date();
+        PageRequest pageable = PageRequest.ofSize(10);
+        Slice<User> users = new SliceImpl<>(List.of(new User()), pageable, false);
+        when(userSnapshotStore.canSearchByBirthDate(pageable)).thenReturn(true);
+        when(userSnapshotStore.searchByBirthDate(from, to, pageable)).thenReturn(users);
+
+        assertSame(users, userService.searchByDate(from, to, pageable));
+        verify(userRepository, never()).findByBirthDateBetween(any(), any(), any());
+    }
+
+    @Test
+    public void testUpdateUserByFields() {
+        User testUser = new User("test@example.com", "John", "Doe", null);
+        testUser.setId(1L);
+        testUser.setVersion(2L);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(userRepository.replaceUser(testUser, 2L)).thenReturn(Optional.of(testUser));
+        when(validator.validate(testUser)).thenReturn(Set.of());
+
+        User updatedUser = userService.updateUserByFields(Map.of("phoneNumber", "1234567890"), 1L, null);
+
+        assertEquals("1234567890", updatedUser.getPhoneNumber());
+        verify(validator, times(1)).validate(testUser);
+        verify(userRepository, times(1)).replaceUser(testUser, 2L);
+        verify(userTextIndex).put(testUser);
+    }
+
+    @Test
+    public void testUpdateUserDoesNotLoadTheUser() {
+        User testUser = new User("test@example.com", "John", "Doe", null);
+        when(userRepository.updateUser(testUser, null)).thenReturn(Optional.of(testUser));
+
+        assertSame(testUser, userService.updateUser(testUser, 1L, null));
+        assertEquals(1L, testUser.getId());
+        verify(userRepository, never()).findById(any());
+        verify(userRepository, never()).existsById(any());
+    }
+
+    @Test
+    public void testUpdateUserNotFound() {
+        User testUser = new User("test@example.com", "John", "Doe", null);
+        when(userRepository.updateUser(testUser, 2L)).thenReturn(Optional.empty());
+        when(userRepository.existsById(1L)).thenReturn(false);
+
+        assertThrows(UserNotFoundException.class, () -> userService.updateUser(testUser, 1L, 2L));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testUpdateUserByFieldsRejectsInvalidUser() {
+        User testUser = new User("test@example.com", "John", "Doe", null);
+        testUser.setId(1L);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(validator.validate(testUser)).thenReturn(Set.of(mock(ConstraintViolation.class)));
+
+        assertThrows(ConstraintViolationException.class,
+                () -> userService.updateUserByFields(Map.of("email", "invalidEmail.com"), 1L, null));
+        verify(userRepository, never()).replaceUser(any(User.class), any());
+    }
+
+    @Test
+    public void testUpdateUserByFieldsWithStaleVersion() {
+        User testUser = new User("test@example.com", "John", "Doe", null);
+        testUser.setId(1L);
+        testUser.setVersion(3L);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+
+        assertThrows(PreconditionFailedException.class,
+                () -> userService.updateUserByFields(Map.of("phoneNumber", "1234567890"), 1L, 2L));
+        assertNull(testUser.getPhoneNumber());
+        verify(userRepository, never()).replaceUser(any(User.class), any());
+    }
+
+    @Test
+    public void testUpdateUserByFieldsModifiedConcurrently() {
+        User testUser = new User("test@example.com", "John", "Doe", null);
+        testUser.setId(1L);
+        testUser.setVersion(2L);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(validator.validate(testUser)).thenReturn(Set.of());
+        when(userRepository.replaceUser(testUser, 2L)).thenReturn(Optional.empty());
+        when(userRepository.existsById(1L)).thenReturn(true);
+
+        assertThrows(PreconditionFailedException.class,
+                () -> userService.updateUserByFields(Map.of("phoneNumber", "1234567890"), 1L, 2L));
+        // Without If-Match the update is still only made on the version that was read
+        assertThrows(OptimisticLockingFailureException.class,
+                () -> userService.updateUserByFields(Map.of("phoneNumber", "1234567890"), 1L, null));
+    }
+
+    @Test
+    public void testUsersVersionChangesOnWrite() {
+        User testUser = new User();
+        testUser.setId(1L);
+        when(userRepository.save(any(User.class))).thenReturn(testUser);
+        when(userRepository.deleteUserById(1L)).thenReturn(1);
+
+        String initialVersion = userService.getUsersVersion();
+        assertEquals(initialVersion, userService.getUsersVersion());
+
+        userService.createNewUser(testUser);
+        String createdVersion = userService.getUsersVersion();
+        assertNotEquals(initialVersion, createdVersion);
+
+        userService.deleteUserById(1L);
+        assertNotEquals(createdVersion, userService.getUsersVersion());
+    }
+
+    @Test
+    public void testDeleteUserById() {
+        when(userRepository.deleteUserById(1L)).thenReturn(1);
+
+        userService.deleteUserById(1L);
+
+        verify(userRepository, never()).findById(any());
+        verify(userTextIndex).remove(1L);
+        verify(userSnapshotStore).remove(1L);
+    }
+
+    @Test
+    public void testDeleteUserByIdNotFound() {
+        when(userRepository.deleteUserById(1L)).thenReturn(0);
+
+        assertThrows(UserNotFoundException.class, () -> userService.deleteUserById(1L));
+        verify(userTextIndex, never()).remove(any());
+    }
+
+    @Test
+    public void testUpdateUsersByIdIsChunked() {
+        cacheManager.getCache(UserService.USERS_CACHE).put(3L, new User());
+        when(userRepository.updateUsersById(eq(Map.of("lastName", "Roe")), anyList()))
+                .thenAnswer(invocation -> invocation.<List<Long>>getArgument(1).stream().map(id -> {
+                    User user = new User();
+                    user.setId(id);
+                    return user;
+                }).toList());
+
+        assertEquals(5, userService.updateUsersById(Map.of("lastName", "Roe"), List.of(1L, 2L, 3L, 3L, 4L, 5L)));
+
+        verify(userRepository).updateUsersById(Map.of("lastName", "Roe"), List.of(1L, 2L));
+        verify(userRepository).updateUsersById(Map.of("lastName", "Roe"), List.of(3L, 4L));
+        verify(userRepository).updateUsersById(Map.of("lastName", "Roe"), List.of(5L));
+        verify(userTextIndex, times(5)).put(any(User.class));
+        assertNull(cacheManager.getCache(UserService.USERS_CACHE).get(3L));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testUpdateUsersRejectsInvalidFields() {
+        when(validator.validateValue(User.class, "lastName", ""))
+                .thenReturn(Set.of(mock(ConstraintViolation.class)));
+
+        assertThrows(ConstraintViolationException.class,
+                () -> userService.updateUsersById(Map.of("lastName", ""), List.of(1L)));
+        assertThrows(ParametersValidationException.class,
+                () -> userService.updateUsersById(Map.of("email", "same@example.com"), List.of(1L)));
+        assertThrows(ParametersValidationException.class,
+                () -> userService.updateUsersById(Map.of("version", 1), List.of(1L)));
+        assertThrows(ParametersValidationException.class, () -> userService.updateUsersById(Map.of(), List.of(1L)));
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    public void testDeleteUsersByBirthDateBetweenGoesOnAfterTheLastDeletedId() {
+        Date from = new Date(0);
+        Date to = new Date(1);
+        when(userRepository.deleteUsersByBirthDateBetween(from, to, 0L, 2)).thenReturn(List.of(4L, 2L));
+        when(userRepository.deleteUsersByBirthDateBetween(from, to, 4L, 2)).thenReturn(List.of(7L));
+        String version = userService.getUsersVersion();
+
+        assertEquals(3, userService.deleteUsersByBirthDateBetween(from, to));
+
+        verify(userRepository, times(2)).deleteUsersByBirthDateBetween(any(), any(), anyLong(), anyInt());
+        verify(userTextIndex).remove(7L);
+        verify(userSnapshotStore).remove(2L);
+        assertNotEquals(version, userService.getUsersVersion());
+    }
+
+    @Test
+    public void testFindUsersAfter() {
         // Create a list of test users
         List<User> testUsers = new ArrayList<>();
         User user1 = new User();
@@ -72,15 +312,99 @@ public class UserServiceTest {
         testUsers.add(user1);
         testUsers.add(user2);
 
-        when(userRepository.findAll()).thenReturn(testUsers);
+        when(userRepository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.ofSize(2)))
+                .thenReturn(new SliceImpl<>(testUsers, PageRequest.ofSize(2), true));
 
-        // Call the service method being tested
-        List<User> foundUsers = userService.findAllUsers();
+        // Call the service method being tested, starting from the first page
+        Slice<User> foundUsers = userService.findUsersAfter(null, 2);
 
         // Assert that the found users match the test users
         assertNotNull(foundUsers);
-        assertEquals(2, foundUsers.size());
-        assertEquals(1L, foundUsers.get(0).getId());
-        assertEquals(2L, foundUsers.get(1).getId());
+        assertEquals(2, foundUsers.getNumberOfElements());
+        assertEquals(1L, foundUsers.getContent().get(0).getId());
+        assertEquals(2L, foundUsers.getContent().get(1).getId());
+        assertTrue(foundUsers.hasNext());
+    }
+
+    @Test
+    public void testFindUsersAfterWithFields() {
+        Slice<UserFields> users = new SliceImpl<>(List.of(new UserFields()));
+        when(userRepository.findFieldsByIdGreaterThan(Set.of("email"), 0L, PageRequest.ofSize(2))).thenReturn(users);
+
+        assertSame(users, userService.findUsersAfter(null, 2, Set.of("email")));
+    }
+
+    @Test
+    public void testFindUsersAfterWithUnknownField() {
+        assertThrows(ParametersValidationException.class, () -> userService.findUsersAfter(null, 2, Set.of("version")));
+        assertThrows(ParametersValidationException.class, () -> userService.findUsersAfter(null, 2, Set.of("password")));
+
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    public void testFindUsersAfterWithNoField() {
+        assertThrows(ParametersValidationException.class, () -> userService.findUsersAfter(null, 2, Set.of()));
+        assertThrows(ParametersValidationException.class,
+                () -> userService.searchByDate(new Date(0), new Date(), PageRequest.ofSize(2), Set.of()));
+
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    public void testSearchByTextKeepsTheRankingOfTheIndex() {
+        User user1 = new User();
+        user1.setId(1L);
+        User user2 = new User();
+        user2.setId(2L);
+        when(userTextIndex.search("doe", 3)).thenReturn(List.of(2L, 3L, 1L));
+        when(userRepository.findAllById(List.of(2L, 3L, 1L))).thenReturn(List.of(user1, user2));
+
+        assertEquals(List.of(user2, user1), userService.searchByText("doe", 3));
+    }
+
+    @Test
+    public void testExportUsersDetachesEveryUser() {
+        User user1 = new User();
+        user1.setId(1L);
+        User user2 = new User();
+        user2.setId(2L);
+        when(userRepository.streamAllOrderById()).thenReturn(Stream.of(user1, user2));
+
+        List<User> exportedUsers = new ArrayList<>();
+        userService.exportUsers(exportedUsers::add);
+
+        assertEquals(List.of(user1, user2), exportedUsers);
+        verify(entityManager, times(1)).detach(user1);
+        verify(entityManager, times(1)).detach(user2);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testCreateNewUsersReportsEveryItem() {
+        User valid1 = new User();
+        User invalid = new User();
+        User valid2 = new User();
+        ConstraintViolation<User> violation = mock(ConstraintViolation.class);
+        when(violation.getMessage()).thenReturn("Email can't be empty");
+        when(validator.validate(any(User.class))).thenReturn(Set.of());
+        when(validator.validate(invalid)).thenReturn(Set.of(violation));
+        doAnswer(invocation -> {
+            User user = invocation.getArgument(0);
+            user.setId(user == valid1 ? 1L : 2L);
+            return null;
+        }).when(entityManager).persist(any(User.class));
+
+        List<BatchItemResult> results = userService.createNewUsers(List.of(valid1, invalid, valid2));
+
+        assertEquals(3, results.size());
+        assertEquals(201, results.get(0).getStatus());
+        assertEquals(1L, results.get(0).getId());
+        assertEquals(400, results.get(1).getStatus());
+        assertEquals(List.of("Email can't be empty"), results.get(1).getErrors());
+        assertEquals(201, results.get(2).getStatus());
+        assertEquals(2L, results.get(2).getId());
+        verify(entityManager, never()).persist(invalid);
+        verify(entityManager, times(1)).flush();
     }
 }
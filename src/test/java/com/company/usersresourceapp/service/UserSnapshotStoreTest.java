@@ -0,0 +1,184 @@
+package com.company.usersresourceapp.service;
+
+import com.company.usersresourceapp.model.User;
+import com.company.usersresourceapp.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class UserSnapshotStoreTest {
+    @TempDir
+    private Path directory;
+
+    private UserRepository userRepository;
+
+    private UserSnapshotStore userSnapshotStore;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        userSnapshotStore = new UserSnapshotStore(userRepository, mock(EntityManager.class),
+                mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(userSnapshotStore, "enabled", true);
+        ReflectionTestUtils.setField(userSnapshotStore, "directory", directory);
+        ReflectionTestUtils.setField(userSnapshotStore, "mergeInterval", Duration.ofMinutes(5));
+        User withAddress = user(3L, "1985-06-15");
+        withAddress.setAddress("1 Rue de l'Été");
+        withAddress.setVersion(4L);
+        when(userRepository.streamAllOrderById()).thenAnswer(invocation -> Stream.of(
+                user(1L, "1990-01-01"), user(2L, "1980-01-01"), withAddress, user(4L, "1990-01-01")));
+    }
+
+    @Test
+    public void testNotServingUntilMerged() {
+        assertFalse(userSnapshotStore.isServing());
+        assertFalse(userSnapshotStore.canSearchByBirthDate(PageRequest.ofSize(10)));
+
+        assertEquals(4, userSnapshotStore.merge());
+
+        assertTrue(userSnapshotStore.isServing());
+    }
+
+    @Test
+    public void testFindById() {
+        userSnapshotStore.merge();
+
+        User user = userSnapshotStore.findById(3L).orElseThrow();
+
+        assertEquals("user3@example.com", user.getEmail());
+        assertEquals("John", user.getFirstName());
+        assertEquals(date("1985-06-15"), user.getBirthDate());
+        assertEquals("1 Rue de l'Été", user.getAddress());
+        assertNull(user.getPhoneNumber());
+        assertEquals(4L, user.getVersion());
+        assertTrue(userSnapshotStore.findById(5L).isEmpty());
+    }
+
+    @Test
+    public void testChangesTakePrecedenceOverTheSnapshot() {
+        userSnapshotStore.merge();
+        User updatedUser = user(1L, "1990-01-01");
+        updatedUser.setFirstName("Jane");
+        updatedUser.setVersion(1L);
+
+        userSnapshotStore.put(updatedUser);
+        userSnapshotStore.put(user(5L, "2000-01-01"));
+        userSnapshotStore.remove(2L);
+        updatedUser.setFirstName("Changed by the caller");
+
+        assertEquals("Jane", userSnapshotStore.findById(1L).orElseThrow().getFirstName());
+        assertTrue(userSnapshotStore.findById(5L).isPresent());
+        assertTrue(userSnapshotStore.findById(2L).isEmpty());
+    }
+
+    @Test
+    public void testOlderVersionDoesNotReplaceNewerChange() {
+        userSnapshotStore.merge();
+        User newer = user(1L, "1990-01-01");
+        newer.setVersion(2L);
+        User older = user(1L, "1990-01-01");
+        older.setFirstName("Stale");
+        older.setVersion(1L);
+
+        userSnapshotStore.put(newer);
+        userSnapshotStore.put(older);
+
+        assertEquals(2L, userSnapshotStore.findById(1L).orElseThrow().getVersion());
+    }
+
+    @Test
+    public void testSearchByBirthDate() {
+        userSnapshotStore.merge();
+        userSnapshotStore.put(user(5L, "1989-12-31"));
+        userSnapshotStore.remove(4L);
+
+        Slice<User> first = userSnapshotStore.searchByBirthDate(date("1985-01-01"), date("1990-01-01"),
+                PageRequest.of(0, 2));
+        Slice<User> second = userSnapshotStore.searchByBirthDate(date("1985-01-01"), date("1990-01-01"),
+                PageRequest.of(1, 2));
+
+        assertEquals(List.of(3L, 5L), first.map(User::getId).toList());
+        assertTrue(first.hasNext());
+        assertEquals(List.of(1L), second.map(User::getId).toList());
+        assertFalse(second.hasNext());
+    }
+
+    @Test
+    public void testSearchByBirthDateOnlyInIndexOrder() {
+        userSnapshotStore.merge();
+
+        assertTrue(userSnapshotStore.canSearchByBirthDate(PageRequest.of(0, 10, Sort.by("birthDate", "id"))));
+        assertFalse(userSnapshotStore.canSearchByBirthDate(PageRequest.of(0, 10, Sort.by("lastName"))));
+        assertFalse(userSnapshotStore.canSearchByBirthDate(PageRequest.of(0, 10, Sort.by("birthDate").descending())));
+    }
+
+    @Test
+    public void testMergeFoldsChangesIntoNewSnapshot() throws Exception {
+        userSnapshotStore.merge();
+        userSnapshotStore.remove(2L);
+        when(userRepository.streamAllOrderById()).thenAnswer(invocation -> Stream.of(user(1L, "1990-01-01")));
+
+        assertEquals(1, userSnapshotStore.merge());
+
+        assertTrue(userSnapshotStore.findById(2L).isEmpty());
+        assertTrue(userSnapshotStore.findById(1L).isPresent());
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    public void testFirstMergeDeletesStaleSnapshots() throws Exception {
+        Files.writeString(directory.resolve("users-3-1000.snapshot"), "stale");
+        Files.writeString(directory.resolve("other.file"), "1");
+
+        userSnapshotStore.merge();
+
+        assertFalse(Files.exists(directory.resolve("users-3-1000.snapshot")));
+        assertTrue(Files.exists(directory.resolve("other.file")));
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(2, files.count());
+        }
+    }
+
+    @Test
+    public void testDisabledStoreIgnoresWrites() {
+        ReflectionTestUtils.setField(userSnapshotStore, "enabled", false);
+        userSnapshotStore.start();
+        assertFalse(userSnapshotStore.isServing());
+
+        userSnapshotStore.put(user(5L, "2000-01-01"));
+        userSnapshotStore.merge();
+
+        assertTrue(userSnapshotStore.findById(5L).isEmpty());
+    }
+
+    private static User user(Long id, String birthDate) {
+        User user = new User("user" + id + "@example.com", "John", "Doe", date(birthDate));
+        user.setId(id);
+        user.setVersion(0L);
+        return user;
+    }
+
+    private static Date date(String date) {
+        return Date.from(LocalDate.parse(date).atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+}
@@ -0,0 +1,23 @@
+package com.company.usersresourceapp.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:text-index-endpoint-test;NON_KEYWORDS=user")
+@AutoConfigureMockMvc
+public class UserTextIndexEndpointTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void testRebuildIsOnlyExposedWithTheOpsProfile() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post("/actuator/usertextindex"))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,96 @@
+package com.company.usersresourceapp.service;
+
+import com.company.usersresourceapp.model.User;
+import com.company.usersresourceapp.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class UserTextIndexTest {
+    private UserRepository userRepository;
+
+    private UserTextIndex userTextIndex;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        userTextIndex = new UserTextIndex(userRepository, mock(EntityManager.class), mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(userTextIndex, "searchBudget", Duration.ofSeconds(1));
+        userTextIndex.put(user(1L, "john.doe@example.com", "John", "Doe"));
+        userTextIndex.put(user(2L, "jane@example.com", "Jane", "Johnson"));
+        userTextIndex.put(user(3L, "bob@example.com", "Bob", "Dolan"));
+    }
+
+    @Test
+    public void testSearchRanksExactThenPrefixThenInfixMatches() {
+        userTextIndex.put(user(4L, "x@example.com", "Mary", "Bjohn"));
+
+        assertEquals(List.of(1L, 2L, 4L), userTextIndex.search("john", 10));
+    }
+
+    @Test
+    public void testShortQueryOnlyMatchesPrefixes() {
+        assertEquals(List.of(1L, 3L), userTextIndex.search("Do", 10));
+        assertEquals(List.of(1L, 2L), userTextIndex.search("j", 10));
+    }
+
+    @Test
+    public void testEveryWordMustMatch() {
+        assertEquals(List.of(1L), userTextIndex.search("john do", 10));
+        assertEquals(List.of(), userTextIndex.search("john dolan", 10));
+    }
+
+    @Test
+    public void testSearchMatchesInsideEmails() {
+        assertEquals(List.of(2L), userTextIndex.search("ne@exa", 10));
+    }
+
+    @Test
+    public void testSearchIsLimited() {
+        assertEquals(List.of(1L, 2L), userTextIndex.search("example", 2));
+    }
+
+    @Test
+    public void testPutReplacesTheTermsOfAUser() {
+        userTextIndex.put(user(1L, "john.doe@example.com", "John", "Smith"));
+
+        assertEquals(List.of(3L), userTextIndex.search("do", 10));
+        assertEquals(List.of(1L), userTextIndex.search("smith", 10));
+    }
+
+    @Test
+    public void testRemove() {
+        userTextIndex.remove(1L);
+
+        assertEquals(List.of(2L), userTextIndex.search("john", 10));
+        assertEquals(2, userTextIndex.size());
+    }
+
+    @Test
+    public void testRebuildReplacesTheIndexAndKeepsWritesMadeMeanwhile() {
+        when(userRepository.streamAllOrderById()).thenAnswer(invocation -> {
+            // Written while the database is being read
+            userTextIndex.put(user(6L, "late@example.com", "Late", "Writer"));
+            return Stream.of(user(5L, "alice@example.com", "Alice", "Doe"));
+        });
+
+        assertEquals(2, userTextIndex.rebuild());
+        assertEquals(List.of(5L), userTextIndex.search("doe", 10));
+        assertEquals(List.of(6L), userTextIndex.search("late", 10));
+    }
+
+    private static User user(Long id, String email, String firstName, String lastName) {
+        User user = new User(email, firstName, lastName, null);
+        user.setId(id);
+        return user;
+    }
+}
@@ -0,0 +1,153 @@
+package com.company.usersresourceapp.service;
+
+import com.company.usersresourceapp.model.BatchItemResult;
+import com.company.usersresourceapp.model.PendingUserStatus;
+import com.company.usersresourceapp.model.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class UserWriteBehindLogTest {
+    @TempDir
+    private Path directory;
+
+    private UserService userService;
+
+    private List<String> insertedEmails;
+
+    private UserWriteBehindLog userWriteBehindLog;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        userService = mock(UserService.class);
+        insertedEmails = new ArrayList<>();
+        when(userService.createNewUsers(anyList())).thenAnswer(invocation -> {
+            List<User> users = invocation.getArgument(0);
+            synchronized (insertedEmails) {
+                users.forEach(user -> insertedEmails.add(user.getEmail()));
+            }
+            return IntStream.range(0, users.size()).mapToObj(i -> BatchItemResult.created(i, 100L + i)).toList();
+        });
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        userWriteBehindLog.stop();
+    }
+
+    @Test
+    public void testAppendedUsersAreInserted() throws Exception {
+        userWriteBehindLog = start();
+
+        PendingUserStatus status = userWriteBehindLog.append(user("john@example.com"));
+
+        assertEquals(HttpStatus.ACCEPTED, status.getTitle());
+        PendingUserStatus inserted = awaitInserted(status.getTicket());
+        assertEquals(201, inserted.getStatus());
+        assertEquals(100L, inserted.getId());
+        assertEquals(List.of("john@example.com"), insertedEmails);
+        assertTrue(userWriteBehindLog.status(status.getTicket() + 1).isEmpty());
+    }
+
+    @Test
+    public void testLogIsEmptiedOnceInserted() throws Exception {
+        userWriteBehindLog = start();
+
+        awaitInserted(userWriteBehindLog.append(user("john@example.com")).getTicket());
+
+        assertEquals(0, Files.size(directory.resolve("users.log")));
+        assertEquals("1", Files.readString(directory.resolve("users.checkpoint")));
+    }
+
+    @Test
+    public void testUsersLoggedAfterCheckpointAreReplayedOnStart() throws Exception {
+        Files.writeString(directory.resolve("users.checkpoint"), "1");
+        ObjectMapper objectMapper = new ObjectMapper();
+        Files.writeString(directory.resolve("users.log"),
+                "1\t" + objectMapper.writeValueAsString(user("inserted@example.com")) + "\n"
+                        + "2\t" + objectMapper.writeValueAsString(user("replayed@example.com")) + "\n"
+                        + "3\t{\"email\":\"torn");
+
+        userWriteBehindLog = start();
+
+        awaitInserted(2);
+        assertEquals(List.of("replayed@example.com"), insertedEmails);
+        // Tickets go on after the replayed ones
+        assertEquals(3, userWriteBehindLog.append(user("next@example.com")).getTicket());
+    }
+
+    @Test
+    public void testEntriesAppendedAfterTornEntryAreReplayedOnRestart() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        Files.writeString(directory.resolve("users.log"),
+                "1\t" + objectMapper.writeValueAsString(user("replayed@example.com")) + "\n"
+                        + "2\t{\"email\":\"torn");
+        // Nothing is inserted before the restart, everything stays in the log
+        when(userService.createNewUsers(anyList())).thenThrow(new IllegalStateException("Database down"));
+        userWriteBehindLog = start();
+        assertEquals(2, userWriteBehindLog.append(user("next@example.com")).getTicket());
+        assertEquals(3, userWriteBehindLog.append(user("last@example.com")).getTicket());
+        userWriteBehindLog.stop();
+
+        setUp();
+        userWriteBehindLog = start();
+
+        awaitInserted(3);
+        assertEquals(List.of("replayed@example.com", "next@example.com", "last@example.com"), insertedEmails);
+    }
+
+    @Test
+    public void testDisabledLogDoesNothing() throws Exception {
+        userWriteBehindLog = newLog(false);
+        userWriteBehindLog.start();
+
+        assertFalse(userWriteBehindLog.isEnabled());
+        assertFalse(Files.exists(directory.resolve("users.log")));
+    }
+
+    private UserWriteBehindLog start() throws Exception {
+        UserWriteBehindLog log = newLog(true);
+        log.start();
+        return log;
+    }
+
+    private UserWriteBehindLog newLog(boolean enabled) {
+        UserWriteBehindLog log = new UserWriteBehindLog(userService, new ObjectMapper(), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(log, "enabled", enabled);
+        ReflectionTestUtils.setField(log, "directory", directory);
+        ReflectionTestUtils.setField(log, "batchSize", 10);
+        return log;
+    }
+
+    private PendingUserStatus awaitInserted(long ticket) throws InterruptedException {
+        for (int i = 0; i < 500; i++) {
+            Optional<PendingUserStatus> status = userWriteBehindLog.status(ticket);
+            if (status.isPresent() && status.get().getTitle() != HttpStatus.ACCEPTED) {
+                return status.get();
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("User " + ticket + " was not inserted");
+    }
+
+    private static User user(String email) {
+        return new User(email, "John", "Doe", new Date(0));
+    }
+}
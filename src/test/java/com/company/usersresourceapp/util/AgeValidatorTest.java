@@ -9,6 +9,10 @@ import jakarta.validation.ConstraintValidatorContext;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.Calendar;
 import java.util.Date;
 
@@ -31,6 +35,7 @@ public class AgeValidatorTest {
     public void setUp() {
         MockitoAnnotations.openMocks(this);
         ageValidator.setMinimumAge(18);
+        ageValidator.setClock(Clock.systemDefaultZone());
         when(context.buildConstraintViolationWithTemplate("User age must be greater than 18"))
                 .thenReturn(violationBuilder);
     }
@@ -58,9 +63,94 @@ public class AgeValidatorTest {
         assertFalse(ageValidator.isValid(dateOfBirth, context));
     }
 
+    @Test
+    public void testLeapDayBirthdayInCommonYear() {
+        Date dateOfBirth = toDate(LocalDate.of(2004, 2, 29));
+
+        // The 19th birthday of someone born on February 29 is celebrated on March 1 of a common year
+        ageValidator.setClock(clockAt(LocalDate.of(2023, 2, 28)));
+        assertFalse(ageValidator.isValid(dateOfBirth, context));
+        ageValidator.setClock(clockAt(LocalDate.of(2023, 3, 1)));
+        assertTrue(ageValidator.isValid(dateOfBirth, context));
+    }
+
+    @Test
+    public void testBirthdayAfterFebruaryInLeapYearOfBirth() {
+        // March 1 is day 61 of 2004, but day 60 of 2023
+        ageValidator.setClock(clockAt(LocalDate.of(2023, 3, 1)));
+        assertTrue(ageValidator.isValid(toDate(LocalDate.of(2004, 3, 1)), context));
+        assertFalse(ageValidator.isValid(toDate(LocalDate.of(2004, 3, 2)), context));
+    }
+
+    @Test
+    public void testBirthdayAfterFebruaryInLeapYearOfValidation() {
+        // February 29 is day 60 of 2024, as is March 1 of 2005
+        ageValidator.setClock(clockAt(LocalDate.of(2024, 2, 29)));
+        assertFalse(ageValidator.isValid(toDate(LocalDate.of(2005, 3, 1)), context));
+        assertTrue(ageValidator.isValid(toDate(LocalDate.of(2005, 2, 28)), context));
+    }
+
+    @Test
+    public void testCutoffMovesWithTheDate() {
+        Date dateOfBirth = toDate(LocalDate.of(2004, 6, 15));
+        ZoneId zone = ZoneId.systemDefault();
+        MutableClock clock = new MutableClock(LocalDate.of(2023, 6, 14).atTime(12, 0).atZone(zone).toInstant(), zone);
+        ageValidator.setClock(clock);
+
+        assertFalse(ageValidator.isValid(dateOfBirth, context));
+        // Still the same day, the cached cutoff applies
+        clock.set(LocalDate.of(2023, 6, 15).atStartOfDay(zone).toInstant().minusMillis(1));
+        assertFalse(ageValidator.isValid(dateOfBirth, context));
+        // Midnight, the cached cutoff has expired and is computed for the new day
+        clock.set(LocalDate.of(2023, 6, 15).atStartOfDay(zone).toInstant());
+        assertTrue(ageValidator.isValid(dateOfBirth, context));
+    }
+
+    private Clock clockAt(LocalDate date) {
+        ZoneId zone = ZoneId.systemDefault();
+        return Clock.fixed(date.atTime(12, 0).atZone(zone).toInstant(), zone);
+    }
+
+    private Date toDate(LocalDate date) {
+        return Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+
     private Date createDateWithAge(int age) {
         Calendar calendar = Calendar.getInstance();
         calendar.add(Calendar.YEAR, -age);
         return calendar.getTime();
     }
+
+    /**
+     * Clock that a test moves forward, without the validator being told.
+     */
+    private static final class MutableClock extends Clock {
+        private Instant instant;
+
+        private final ZoneId zone;
+
+        MutableClock(Instant instant, ZoneId zone) {
+            this.instant = instant;
+            this.zone = zone;
+        }
+
+        void set(Instant instant) {
+            this.instant = instant;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return zone;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return new MutableClock(instant, zone);
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
 }
@@ -0,0 +1,42 @@
+package com.company.usersresourceapp.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.TimeZone;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EpochDayDateModuleTest {
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new EpochDayDateModule());
+
+    @Test
+    public void testDateIsWrittenAsEpochDay() throws Exception {
+        assertEquals("0", objectMapper.writeValueAsString(Date.from(Instant.parse("1970-01-01T00:00:00Z"))));
+        assertEquals("7305", objectMapper.writeValueAsString(Date.from(Instant.parse("1990-01-01T00:00:00Z"))));
+        assertEquals("-1", objectMapper.writeValueAsString(Date.from(Instant.parse("1969-12-31T00:00:00Z"))));
+    }
+
+    @Test
+    public void testEpochDayIsReadAsStartOfDay() throws Exception {
+        assertEquals(Date.from(Instant.parse("1990-01-01T00:00:00Z")), objectMapper.readValue("7305", Date.class));
+        assertEquals(Date.from(Instant.parse("1969-12-31T00:00:00Z")), objectMapper.readValue("-1", Date.class));
+    }
+
+    @Test
+    public void testDaysFollowTimeZoneOfMapper() throws Exception {
+        ObjectMapper parisObjectMapper = objectMapper.copy().setTimeZone(TimeZone.getTimeZone("Europe/Paris"));
+        Date midnightInParis = Date.from(Instant.parse("1989-12-31T23:00:00Z"));
+
+        assertEquals("7305", parisObjectMapper.writeValueAsString(midnightInParis));
+        assertEquals(midnightInParis, parisObjectMapper.readValue("7305", Date.class));
+    }
+
+    @Test
+    public void testFormattedDateIsRejected() {
+        assertThrows(MismatchedInputException.class, () -> objectMapper.readValue("\"1990-01-01\"", Date.class));
+    }
+}
@@ -0,0 +1,55 @@
+package com.company.usersresourceapp.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LongHashSetTest {
+    @Test
+    public void testAddAndContains() {
+        LongHashSet set = new LongHashSet(2);
+
+        for (long value = -10; value < 1_000; value++) {
+            assertTrue(set.add(value));
+        }
+
+        assertFalse(set.add(0L));
+        assertFalse(set.add(999L));
+        assertEquals(1_010, set.size());
+        assertTrue(set.contains(0L));
+        assertTrue(set.contains(-10L));
+        assertFalse(set.contains(1_000L));
+        assertFalse(new LongHashSet().contains(0L));
+    }
+
+    @Test
+    public void testRemovesAndIteratesLikeHashSet() {
+        LongHashSet set = new LongHashSet();
+        Set<Long> expected = new HashSet<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 10_000; i++) {
+            long value = random.nextInt(500) - 10;
+            if (random.nextBoolean()) {
+                assertEquals(expected.add(value), set.add(value));
+            } else {
+                assertEquals(expected.remove(value), set.remove(value));
+            }
+            assertEquals(expected.size(), set.size());
+        }
+
+        Set<Long> iterated = new HashSet<>();
+        for (PrimitiveIterator.OfLong values = set.iterator(); values.hasNext(); ) {
+            iterated.add(values.nextLong());
+        }
+        assertEquals(expected, iterated);
+        for (long value = -10; value < 490; value++) {
+            assertEquals(expected.contains(value), set.contains(value));
+        }
+    }
+}
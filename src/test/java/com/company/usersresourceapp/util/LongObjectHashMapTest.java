@@ -0,0 +1,71 @@
+package com.company.usersresourceapp.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LongObjectHashMapTest {
+    @Test
+    public void testPutGetAndRemove() {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>();
+
+        assertNull(map.put(1L, "one"));
+        assertEquals("one", map.put(1L, "uno"));
+        assertNull(map.put(-7L, "minus seven"));
+
+        assertEquals("uno", map.get(1L));
+        assertEquals("minus seven", map.get(-7L));
+        assertNull(map.get(2L));
+        assertEquals(2, map.size());
+        assertEquals("uno", map.remove(1L));
+        assertNull(map.remove(1L));
+        assertFalse(map.containsKey(1L));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void testZeroKey() {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>();
+
+        assertNull(map.get(0L));
+        map.put(0L, "zero");
+
+        assertEquals("zero", map.get(0L));
+        assertEquals(1, map.size());
+        assertEquals("zero", map.remove(0L));
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    public void testGrowsAndRemovesLikeHashMap() {
+        LongObjectHashMap<Long> map = new LongObjectHashMap<>();
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            // Few distinct keys, so that removals shift back long runs of colliding entries
+            long key = random.nextInt(5_000) - 100;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                assertEquals(expected.put(key, (long) i), map.put(key, (long) i));
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (long key = -100; key < 4_900; key++) {
+            assertEquals(expected.get(key), map.get(key));
+        }
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(1L));
+    }
+
+    @Test
+    public void testRejectsNullValues() {
+        assertThrows(NullPointerException.class, () -> new LongObjectHashMap<String>().put(1L, null));
+    }
+}
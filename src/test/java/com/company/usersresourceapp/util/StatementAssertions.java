@@ -0,0 +1,36 @@
+package com.company.usersresourceapp.util;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Asserts how many JDBC statements a call issues, counted by the {@link StatementCounter}:
+ * <pre>
+ * User user = assertMaxStatements(1, () -> userService.findUserById(id));
+ * </pre>
+ */
+public final class StatementAssertions {
+    private StatementAssertions() {
+    }
+
+    public static <T> T assertMaxStatements(int max, Supplier<T> call) {
+        try (StatementCounter.Counting counting = StatementCounter.start()) {
+            T result = call.get();
+            if (counting.statements() > max) {
+                Map.Entry<String, Integer> mostRepeated = counting.mostRepeated();
+                fail("Expected at most " + max + " statements but " + counting.statements() + " were run, "
+                        + mostRepeated.getValue() + " times " + mostRepeated.getKey());
+            }
+            return result;
+        }
+    }
+
+    public static void assertMaxStatements(int max, Runnable call) {
+        assertMaxStatements(max, () -> {
+            call.run();
+            return null;
+        });
+    }
+}
@@ -0,0 +1,49 @@
+package com.company.usersresourceapp.util;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StatementCounterTest {
+    private final StatementCounter statementCounter = new StatementCounter();
+
+    @Test
+    public void testCountsOnlyWhileCounting() {
+        execute("select 1");
+        try (StatementCounter.Counting counting = StatementCounter.start()) {
+            execute("select 1");
+            execute("select 2");
+            execute("select 1");
+
+            assertEquals(3, counting.statements());
+            assertEquals(Map.entry("select 1", 2), counting.mostRepeated());
+        }
+        try (StatementCounter.Counting counting = StatementCounter.start()) {
+            assertEquals(0, counting.statements());
+            assertNull(counting.mostRepeated());
+        }
+    }
+
+    @Test
+    public void testNestedCountingAlsoCountsForTheOuterOne() {
+        try (StatementCounter.Counting outer = StatementCounter.start()) {
+            execute("select 1");
+            try (StatementCounter.Counting inner = StatementCounter.start()) {
+                execute("select 2");
+                assertEquals(1, inner.statements());
+            }
+            execute("select 3");
+
+            assertEquals(3, outer.statements());
+        }
+    }
+
+    private void execute(String sql) {
+        statementCounter.afterQuery(new ExecutionInfo(), List.of(new QueryInfo(sql)));
+    }
+}
@@ -0,0 +1,111 @@
+package com.company.usersresourceapp.util;
+
+import com.company.usersresourceapp.exception.ParametersValidationException;
+import com.company.usersresourceapp.model.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TimeZone;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UserFieldSettersTest {
+    private UserFieldSetters userFieldSetters;
+
+    private User user;
+
+    @BeforeEach
+    public void setUp() {
+        userFieldSetters = new UserFieldSetters(new ObjectMapper());
+        user = new User("test@example.com", "John", "Doe", null);
+        user.setId(1L);
+    }
+
+    @Test
+    public void testApplyStringFields() {
+        userFieldSetters.apply(user, Map.of("phoneNumber", "1234567890", "address", "Main street"));
+
+        assertEquals("1234567890", user.getPhoneNumber());
+        assertEquals("Main street", user.getAddress());
+        assertEquals("test@example.com", user.getEmail());
+    }
+
+    @Test
+    public void testApplyConvertsBirthDate() throws Exception {
+        userFieldSetters.apply(user, Map.of("birthDate", "1990-01-15"));
+
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd");
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        assertEquals(format.parse("1990-01-15"), user.getBirthDate());
+    }
+
+    @Test
+    public void testApplyNullValue() {
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("address", null);
+        user.setAddress("Main street");
+
+        userFieldSetters.apply(user, fields);
+
+        assertNull(user.getAddress());
+    }
+
+    @Test
+    public void testConvertLeavesTheUserAlone() throws Exception {
+        Map<String, Object> values = userFieldSetters.convert(Map.of("birthDate", "1990-01-15"));
+
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd");
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        assertEquals(Map.of("birthDate", format.parse("1990-01-15")), values);
+        assertThrows(ParametersValidationException.class, () -> userFieldSetters.convert(Map.of("id", 2)));
+    }
+
+    @Test
+    public void testReflectiveSetterOfNativeImages() throws Exception {
+        UserFieldSetters.reflectiveSetter(User.class.getMethod("setFirstName", String.class)).accept(user, "Jane");
+
+        assertEquals("Jane", user.getFirstName());
+    }
+
+    @Test
+    public void testHintsLetNativeImagesInvokeTheSetters() throws Exception {
+        RuntimeHints hints = new RuntimeHints();
+        new UserFieldSetters.Hints().registerHints(hints, getClass().getClassLoader());
+
+        assertTrue(RuntimeHintsPredicates.reflection().onMethod(User.class.getMethod("setBirthDate", Date.class)).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onMethod(User.class.getMethod("getEmail")).test(hints));
+    }
+
+    @Test
+    public void testApplyUnknownField() {
+        assertThrows(ParametersValidationException.class,
+                () -> userFieldSetters.apply(user, Map.of("password", "secret")));
+    }
+
+    @Test
+    public void testApplyIdIsNotPatchable() {
+        assertThrows(ParametersValidationException.class, () -> userFieldSetters.apply(user, Map.of("id", 2)));
+        assertEquals(1L, user.getId());
+    }
+
+    @Test
+    public void testApplyVersionIsNotPatchable() {
+        user.setVersion(3L);
+
+        assertThrows(ParametersValidationException.class, () -> userFieldSetters.apply(user, Map.of("version", 0)));
+        assertEquals(3L, user.getVersion());
+    }
+
+    @Test
+    public void testApplyWrongType() {
+        assertThrows(ParametersValidationException.class,
+                () -> userFieldSetters.apply(user, Map.of("birthDate", Map.of("year", 1990))));
+    }
+}
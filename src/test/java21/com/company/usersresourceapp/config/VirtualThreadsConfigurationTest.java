@@ -0,0 +1,30 @@
+package com.company.usersresourceapp.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VirtualThreadsConfigurationTest {
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withUserConfiguration(VirtualThreadsConfiguration.class);
+
+    @Test
+    public void testPlatformModeKeepsDefaultExecutors() {
+        contextRunner.withPropertyValues("execution.mode=platform")
+                .run(context -> assertTrue(context.getBeansOfType(ExecutorService.class).isEmpty()));
+    }
+
+    @Test
+    public void testVirtualMode() {
+        contextRunner.withPropertyValues("execution.mode=virtual").run(context -> {
+            assertNull(context.getStartupFailure());
+            boolean virtual = context.getBean(ExecutorService.class)
+                    .submit(() -> Thread.currentThread().isVirtual())
+                    .get();
+            assertTrue(virtual);
+        });
+    }
+}